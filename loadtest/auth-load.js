@@ -0,0 +1,85 @@
+// 認証APIの負荷試験スクリプト（k6）
+//
+// プラットフォームスレッドモードと仮想スレッドモードを同じ条件で比較するために使用します。
+//   1. ./gradlew bootRun --args='--spring.profiles.active=dev --auth.refresh-rate-limit.enabled=false'           （プラットフォームスレッド）
+//   2. ./gradlew bootRun --args='--spring.profiles.active=dev,vthreads --auth.refresh-rate-limit.enabled=false'  （仮想スレッド）
+// それぞれの起動に対して次のコマンドを実行し、http_req_duration の p95/p99 と http_reqs を比較します。
+//   k6 run -e BASE_URL=http://localhost:8080 loadtest/auth-load.js
+//
+// refreshシナリオは1つのリフレッシュトークン・1つのIPアドレスから毎秒200回呼び出すため、
+// 再発行の回数制限（auth.refresh-rate-limit）が有効なままでは大半が429となり、再発行の処理を計測できません。
+// 負荷試験では回数制限を無効にして起動し、'refresh 200' のチェックがすべて成功することを確認してください。
+//
+// シナリオ:
+//   secured : 取得済みのアクセストークンで /api/secured/hello を呼び出す（認証済みGET）
+//   login   : /api/auth/login を呼び出す（パスワード照合を含むCPU負荷の高い処理）
+//   refresh : /api/auth/refreshToken を呼び出す（データベースアクセスを含む処理。回数制限は無効にして起動する）
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USERNAME = __ENV.USERNAME || 'loadtest-user';
+const PASSWORD = __ENV.PASSWORD || 'loadtest-password';
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+
+export const options = {
+  scenarios: {
+    secured: {
+      executor: 'constant-arrival-rate',
+      exec: 'secured',
+      rate: Number(__ENV.SECURED_RATE || 2000),
+      timeUnit: '1s',
+      duration: __ENV.DURATION || '1m',
+      preAllocatedVUs: 200,
+      maxVUs: 2000,
+    },
+    login: {
+      executor: 'constant-arrival-rate',
+      exec: 'login',
+      rate: Number(__ENV.LOGIN_RATE || 50),
+      timeUnit: '1s',
+      duration: __ENV.DURATION || '1m',
+      preAllocatedVUs: 50,
+      maxVUs: 500,
+    },
+    refresh: {
+      executor: 'constant-arrival-rate',
+      exec: 'refresh',
+      rate: Number(__ENV.REFRESH_RATE || 200),
+      timeUnit: '1s',
+      duration: __ENV.DURATION || '1m',
+      preAllocatedVUs: 50,
+      maxVUs: 500,
+    },
+  },
+};
+
+function loginRequest() {
+  return http.post(`${BASE_URL}/api/auth/login`,
+      JSON.stringify({ username: USERNAME, password: PASSWORD }), JSON_HEADERS);
+}
+
+export function setup() {
+  // 試験用アカウントを登録（登録済みの場合は400が返るが問題ない）
+  http.post(`${BASE_URL}/api/auth/register`,
+      JSON.stringify({ username: USERNAME, password: PASSWORD }), JSON_HEADERS);
+  const body = loginRequest().json();
+  return { jwtToken: body.jwtToken, refreshToken: body.refreshToken };
+}
+
+export function secured(data) {
+  const res = http.get(`${BASE_URL}/api/secured/hello`,
+      { headers: { Authorization: `Bearer ${data.jwtToken}` } });
+  check(res, { 'secured 200': (r) => r.status === 200 });
+}
+
+export function login() {
+  const res = loginRequest();
+  check(res, { 'login 200 or 503': (r) => r.status === 200 || r.status === 503 });
+}
+
+export function refresh(data) {
+  const res = http.post(`${BASE_URL}/api/auth/refreshToken`,
+      JSON.stringify({ refreshToken: data.refreshToken }), JSON_HEADERS);
+  check(res, { 'refresh 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,120 @@
+package com.auth.jwt.benchmark;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.auth.jwt.entity.Account;
+import com.auth.jwt.filter.AuthFailureLog;
+import com.auth.jwt.filter.JwtRequestFilter;
+import com.auth.jwt.mapper.AccountMapper;
+import com.auth.jwt.mapper.RevokedTokenMapper;
+import com.auth.jwt.metrics.AuthMetrics;
+import com.auth.jwt.service.AccountUserDetailsService;
+import com.auth.jwt.service.AuthEventPublisher;
+import com.auth.jwt.service.TokenRevocationService;
+import com.auth.jwt.service.UnknownUsernameFilter;
+import com.auth.jwt.service.UserDetailsCache;
+import com.auth.jwt.util.JwtTokenUtil;
+import com.auth.jwt.util.VerifiedTokenCache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+
+/**
+ * {@link JwtRequestFilter}の1リクエストあたりの処理コストを、モックのサーブレットオブジェクトで計測するベンチマークです。
+ * 認証モード（database / stateless）ごとに、有効なトークンを持つリクエストとAuthorizationヘッダーのないリクエストを比較します。
+ * databaseモードのアカウント取得はモックのマッパーで代用するため、データベースの待ち時間は含みません（モックの呼び出しのコストは含みます）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtRequestFilterBenchmark {
+
+  @Param({ "database", "stateless" })
+  public String authMode;
+
+  @Param({ "false", "true" })
+  public boolean tokenCacheEnabled;
+
+  private JwtRequestFilter jwtRequestFilter;
+  private String authorizationHeader;
+
+  @Setup
+  public void setUp() {
+    JwtTokenUtil jwtTokenUtil = JwtTokenUtilBenchmark.newJwtTokenUtil(
+        new VerifiedTokenCache(tokenCacheEnabled, 1_000));
+    AuthMetrics authMetrics = new AuthMetrics(new SimpleMeterRegistry());
+    AccountMapper accountMapper = mock(AccountMapper.class);
+    when(accountMapper.findByUsername("benchmark-user")).thenReturn(benchmarkAccount());
+    AccountUserDetailsService accountUserDetailsService = new AccountUserDetailsService(
+        accountMapper, new UserDetailsCache(false, 0, 0), authMetrics,
+        new UnknownUsernameFilter(accountMapper, false, false, false, 0, 0, 0, 0.01, 0, 0));
+
+    // ベンチマークでは無効化を行わないため、イベントは記録しない
+    TokenRevocationService tokenRevocationService = new TokenRevocationService(
+        mock(RevokedTokenMapper.class), new AuthEventPublisher(null, false), new SimpleMeterRegistry(), 1_000, 0.01);
+
+    jwtRequestFilter = new JwtRequestFilter(
+        accountUserDetailsService, jwtTokenUtil, authMetrics, new AuthFailureLog(), tokenRevocationService);
+    ReflectionTestUtils.setField(jwtRequestFilter, "authMode", authMode);
+    authorizationHeader = "Bearer " + jwtTokenUtil.generateToken(new User("benchmark-user", "", List.of()));
+  }
+
+  private static Account benchmarkAccount() {
+    Account account = new Account();
+    account.setId(1L);
+    account.setUsername("benchmark-user");
+    account.setPassword("{noop}password");
+    return account;
+  }
+
+  @TearDown(Level.Invocation)
+  public void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Benchmark
+  public MockHttpServletResponse filterWithValidToken() throws ServletException, IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/secured/hello");
+    request.addHeader("Authorization", authorizationHeader);
+    return filter(request);
+  }
+
+  @Benchmark
+  public MockHttpServletResponse filterWithoutToken() throws ServletException, IOException {
+    return filter(new MockHttpServletRequest("GET", "/api/secured/hello"));
+  }
+
+  private MockHttpServletResponse filter(MockHttpServletRequest request) throws ServletException, IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    jwtRequestFilter.doFilter(request, response, new MockFilterChain());
+    return response;
+  }
+}
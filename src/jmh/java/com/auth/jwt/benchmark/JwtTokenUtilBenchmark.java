@@ -0,0 +1,100 @@
+package com.auth.jwt.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.auth.jwt.metrics.AuthMetrics;
+import com.auth.jwt.util.JwtTokenUtil;
+import com.auth.jwt.util.VerifiedToken;
+import com.auth.jwt.util.VerifiedTokenCache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link JwtTokenUtil}によるトークン生成と検証のベンチマークです。
+ * キャッシュした署名鍵・パーサーを使う現在の実装と、検証のたびに鍵とパーサーを構築する従来の実装を比較します。
+ * 検証済みトークンのキャッシュにヒットした場合の処理時間も合わせて計測します。
+ * 1回あたりのアロケーション量は{@code gc}プロファイラの{@code gc.alloc.rate.norm}で確認できます。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenUtilBenchmark {
+
+  static final String SECRET = "AAECAwQFBgcICQoLDA0ODxAREhMUFRYXGBkaGxwdHh8gISIjJCUmJygpKissLS4vMDEyMzQ1Njc4OTo7PD0+Pw==";
+
+  private JwtTokenUtil jwtTokenUtil;
+  private JwtTokenUtil cachingJwtTokenUtil;
+  private UserDetails userDetails;
+  private String token;
+
+  @Setup
+  public void setUp() {
+    jwtTokenUtil = newJwtTokenUtil(new VerifiedTokenCache(false, 0));
+    cachingJwtTokenUtil = newJwtTokenUtil(new VerifiedTokenCache(true, 1_000));
+    userDetails = new User("benchmark-user", "", List.of());
+    token = jwtTokenUtil.generateToken(userDetails);
+  }
+
+  /**
+   * ベンチマーク用に、Springコンテナを使わずにJwtTokenUtilを初期化します。
+   *
+   * @param verifiedTokenCache 検証済みトークンのキャッシュ
+   * @return 初期化済みのJwtTokenUtil
+   */
+  static JwtTokenUtil newJwtTokenUtil(VerifiedTokenCache verifiedTokenCache) {
+    JwtTokenUtil util = new JwtTokenUtil(verifiedTokenCache, new AuthMetrics(new SimpleMeterRegistry()));
+    ReflectionTestUtils.setField(util, "secret", SECRET);
+    ReflectionTestUtils.setField(util, "expiration", TimeUnit.MINUTES.toMillis(15));
+    ReflectionTestUtils.setField(util, "signingAlgorithm", "HS256");
+    ReflectionTestUtils.setField(util, "privateKeyLocation", "");
+    ReflectionTestUtils.setField(util, "publicKeyLocation", "");
+    ReflectionTestUtils.invokeMethod(util, "initKeyMaterial");
+    return util;
+  }
+
+  @Benchmark
+  public String generateToken() {
+    return jwtTokenUtil.generateToken(userDetails);
+  }
+
+  @Benchmark
+  public VerifiedToken verifyWithCachedParser() {
+    return jwtTokenUtil.parseToken(token);
+  }
+
+  @Benchmark
+  public VerifiedToken verifyWithTokenCache() {
+    return cachingJwtTokenUtil.parseToken(token);
+  }
+
+  @Benchmark
+  public Claims verifyWithPerCallParser() {
+    return Jwts.parser()
+        .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+        .build()
+        .parseSignedClaims(token)
+        .getPayload();
+  }
+}
@@ -3,9 +3,11 @@ package com.auth.jwt;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan(basePackages = "com.auth.jwt.mapper")
+@EnableScheduling
 public class JwtApplication {
 
 	public static void main(String[] args) {
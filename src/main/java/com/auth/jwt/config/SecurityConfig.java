@@ -3,15 +3,12 @@ package com.auth.jwt.config;
 import java.util.Arrays;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.ProviderManager;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -20,54 +17,47 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.auth.jwt.filter.JwtRequestFilter;
-import com.auth.jwt.service.AccountUserDetailsService;
+import com.auth.jwt.security.BoundedPasswordEncoder;
+import com.auth.jwt.security.PasswordPolicy;
+import com.auth.jwt.security.PublicPaths;
 
 /**
  * Spring Securityの主要な設定を行うクラスです。
- * このクラスは、パスワードのエンコード、認証管理、そしてHTTPリクエストのセキュリティルールを定義します。
+ * このクラスは、パスワードのエンコードとHTTPリクエストのセキュリティルールを定義します。
+ * ログイン時のパスワードの照合は{@link com.auth.jwt.service.AccountService#login}が行うため、AuthenticationManagerは定義しません。
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
-  private AccountUserDetailsService userDetailsService;
   private JwtRequestFilter jwtRequestFilter;
 
   /**
    * SecurityConfigの新しいインスタンスを生成します。
    *
-   * @param userDetailsService ユーザー詳細情報を取得するためのサービス
-   * @param jwtRequestFilter   JWTトークンを検証するためのカスタムフィルター
+   * @param jwtRequestFilter JWTトークンを検証するためのカスタムフィルター
    */
-  public SecurityConfig(AccountUserDetailsService userDetailsService, JwtRequestFilter jwtRequestFilter) {
-    this.userDetailsService = userDetailsService;
+  public SecurityConfig(JwtRequestFilter jwtRequestFilter) {
     this.jwtRequestFilter = jwtRequestFilter;
   }
 
   /**
    * パスワードのハッシュ化と検証に使用するPasswordEncoderのBeanを定義します。
-   * BCryptアルゴリズムを使用します。
+   * ハッシュ化方式とコストは{@link PasswordPolicy}に従い、処理はリクエスト処理スレッドではなく専用のサイズ固定スレッドプールで実行します。
    *
-   * @return BCryptPasswordEncoderのインスタンス
+   * @param passwordPolicy パスワードのハッシュ化方式とコストを決定するポリシー
+   * @param poolSize       ハッシュ化に使用するスレッド数（0の場合はCPUコア数）
+   * @param queueCapacity  実行待ちにできる処理の最大数
+   * @param timeout        処理の完了を待つ最大時間（ミリ秒）
+   * @return ポリシーに従ったエンコーダーをラップしたBoundedPasswordEncoderのインスタンス
    */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
-  }
-
-  /**
-   * 認証プロセスを管理するAuthenticationManagerのBeanを定義します。
-   * {@link DaoAuthenticationProvider} を使用して、データベースに保存されたユーザー情報とパスワードを検証します。
-   *
-   * @param passwordEncoder パスワードエンコーダー
-   * @return AuthenticationManagerのインスタンス
-   */
-  @Bean
-  public AuthenticationManager authenticationManager(PasswordEncoder passwordEncoder) {
-    DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
-    authenticationProvider.setUserDetailsService(userDetailsService);
-    authenticationProvider.setPasswordEncoder(passwordEncoder);
-    return new ProviderManager(authenticationProvider);
+  public PasswordEncoder passwordEncoder(
+      PasswordPolicy passwordPolicy,
+      @Value("${auth.password-hashing.pool-size:0}") int poolSize,
+      @Value("${auth.password-hashing.queue-capacity:64}") int queueCapacity,
+      @Value("${auth.password-hashing.timeout:5000}") long timeout) {
+    return new BoundedPasswordEncoder(passwordPolicy.createPasswordEncoder(), poolSize, queueCapacity, timeout);
   }
 
   /**
@@ -84,8 +74,11 @@ public class SecurityConfig {
         .cors(cors -> cors.configurationSource(corsConfigurationSource()))
         .csrf(csrf -> csrf.disable())
         .authorizeHttpRequests(authorize -> authorize
-            // 認証エンドポイントとH2コンソールへのアクセスを許可
-            .requestMatchers("/api/auth/**", "/h2-console/**").permitAll()
+            // 認証エンドポイント、H2コンソール、ヘルスチェック、Prometheusによるメトリクス収集、
+            // リソースサーバーがトークンを検証するための公開鍵（JWKS）の取得を許可（JwtRequestFilterもこの一覧でJWTの処理を省略する）
+            .requestMatchers(PublicPaths.MATCHER).permitAll()
+            // ログアウトは認証なしで許可するが、送られたトークンを無効化するためJWTの処理は行う
+            .requestMatchers(PublicPaths.LOGOUT).permitAll()
             // その他のすべてのリクエストには認証を要求
             .anyRequest().authenticated())
         // セッション管理をステートレスに設定
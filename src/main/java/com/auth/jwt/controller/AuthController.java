@@ -2,23 +2,33 @@ package com.auth.jwt.controller;
 
 import com.auth.jwt.model.JwtRequest;
 import com.auth.jwt.model.JwtResponseWithRefreshToken;
+import com.auth.jwt.model.LoginResult;
 import com.auth.jwt.model.RefreshTokenRequest;
 import com.auth.jwt.entity.Account;
+import com.auth.jwt.filter.JwtRequestFilter;
 import com.auth.jwt.entity.RefreshToken;
 import com.auth.jwt.model.AccountRequest;
+import com.auth.jwt.security.LoginThrottle;
+import com.auth.jwt.security.PasswordHashingRejectedException;
+import com.auth.jwt.security.RefreshRateLimiter;
 import com.auth.jwt.service.AccountService;
 import com.auth.jwt.service.RefreshTokenService;
+import com.auth.jwt.service.TokenRevocationService;
+import com.auth.jwt.util.VerifiedToken;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 /**
  * 認証関連のAPIエンドポイントを提供するRESTコントローラーです。
  * アカウントの登録、ログイン、トークンのリフレッシュといった認証フローを管理します。
@@ -29,16 +39,30 @@ public class AuthController {
 
   private AccountService accountService;
   private RefreshTokenService refreshTokenService;
+  private TokenRevocationService tokenRevocationService;
+  private LoginThrottle loginThrottle;
+  private RefreshRateLimiter refreshRateLimiter;
 
   /**
    * AuthControllerの新しいインスタンスを生成します。
    *
    * @param accountService      アカウント関連のビジネスロジックを処理するサービス
-   * @param refreshTokenService リフレッシュトークン関連のビジネスロジックを処理するサービス
+   * @param refreshTokenService    リフレッシュトークン関連のビジネスロジックを処理するサービス
+   * @param tokenRevocationService アクセストークンの無効化を管理するサービス
+   * @param loginThrottle          ログインの失敗回数に応じてログインを制限するクラス
+   * @param refreshRateLimiter     アクセストークンの再発行の回数を制限するリミッター
    */
-  public AuthController(AccountService accountService, RefreshTokenService refreshTokenService) {
+  public AuthController(
+      AccountService accountService,
+      RefreshTokenService refreshTokenService,
+      TokenRevocationService tokenRevocationService,
+      LoginThrottle loginThrottle,
+      RefreshRateLimiter refreshRateLimiter) {
     this.accountService = accountService;
     this.refreshTokenService = refreshTokenService;
+    this.tokenRevocationService = tokenRevocationService;
+    this.loginThrottle = loginThrottle;
+    this.refreshRateLimiter = refreshRateLimiter;
   }
 
   /**
@@ -47,6 +71,7 @@ public class AuthController {
    * @param accountRequest 登録するアカウント情報を含むリクエストボディ
    * @return 登録が成功した場合はHTTPステータス200 OKと成功メッセージを返します。
    *         ユーザー名がすでに存在する場合など、登録に失敗した場合はHTTPステータス400 Bad Requestとエラーメッセージを返します。
+   *         パスワードのハッシュ化処理が混雑している場合はHTTPステータス503 Service Unavailableを返します。
    */
   @PostMapping("/register")
   public ResponseEntity<?> registerUser(@RequestBody AccountRequest accountRequest) {
@@ -55,45 +80,71 @@ public class AuthController {
       return ResponseEntity.ok("ユーザー登録が完了しました。");
     } catch (IllegalArgumentException e) {
       return ResponseEntity.badRequest().body(e.getMessage());
+    } catch (PasswordHashingRejectedException e) {
+      return serviceUnavailable(e);
     }
   }
 
   /**
    * ユーザーのログインを処理し、認証が成功した場合はJWTトークンを返します。
+   * ユーザー名またはクライアントのIPアドレスごとのログインの失敗回数がしきい値に達している場合は、パスワードを照合せずに拒否します。
    *
    * @param authenticationRequest ログイン情報（ユーザー名とパスワード）を含むリクエストボディ
+   * @param request               HTTPリクエスト（クライアントのIPアドレスの取得に使用）
    * @return 認証が成功した場合はHTTPステータス200 OKとJWTトークンを返します。
-   *         認証情報が無効な場合（ユーザー名が存在しない、パスワードが間違っている、ユーザーが無効など）は、
+   *         認証情報が無効な場合（ユーザー名が存在しない、パスワードが間違っているなど）は、
    *         HTTPステータス401 Unauthorizedとエラーメッセージを返します。
+   *         パスワードの照合処理が混雑している場合はHTTPステータス503 Service Unavailableを返します。
+   *         ログインの失敗が続いている場合はHTTPステータス429 Too Many Requestsを返します。
    */
   @PostMapping("/login")
-  public ResponseEntity<?> createAuthenticationToken(@RequestBody JwtRequest authenticationRequest) {
+  public ResponseEntity<?> createAuthenticationToken(
+      @RequestBody JwtRequest authenticationRequest,
+      HttpServletRequest request) {
+    final String username = authenticationRequest.getUsername();
+    final String clientIp = request.getRemoteAddr();
+
+    // 失敗が続いている場合は、パスワードの照合（ハッシュ計算）を行わずに拒否
+    if (loginThrottle.isThrottled(username, clientIp)) {
+      return tooManyRequests(loginThrottle.retryAfterSeconds(), "Too many failed login attempts.");
+    }
+
     try {
-      final String username = authenticationRequest.getUsername();
       final String password = authenticationRequest.getPassword();
-      final String jwtToken = accountService.login(username, password);
+      final LoginResult loginResult = accountService.login(username, password);
 
-      // リフレッシュトークンを生成
-      Account account = accountService.findByUsername(username);
-      RefreshToken refreshToken = refreshTokenService.createRefreshToken(account.getId());
-      return ResponseEntity.ok(new JwtResponseWithRefreshToken(jwtToken, refreshToken.getToken()));
-    } catch (DisabledException | BadCredentialsException | UsernameNotFoundException e) {
+      // ログイン時に取得したアカウントでリフレッシュトークンを生成
+      RefreshToken refreshToken = refreshTokenService.createRefreshToken(loginResult.getAccount().getId());
+      return ResponseEntity.ok(new JwtResponseWithRefreshToken(loginResult.getJwtToken(), refreshToken.getToken()));
+    } catch (BadCredentialsException | UsernameNotFoundException e) {
+      loginThrottle.recordFailure(username, clientIp);
       return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+    } catch (PasswordHashingRejectedException e) {
+      return serviceUnavailable(e);
     }
   }
 
   /**
    * リフレッシュトークンを使用して、新しいJWT（アクセストークン）を取得します。
    * リフレッシュトークンが有効であれば、新しいJWTと既存のリフレッシュトークンを返します。
+   * リフレッシュトークンごと・クライアントのIPアドレスごとの回数の制限を超えた場合は、データベースを参照せずに拒否します。
    *
-   * @param request リフレッシュトークンを含むリクエストボディ
+   * @param request     リフレッシュトークンを含むリクエストボディ
+   * @param httpRequest HTTPリクエスト（クライアントのIPアドレスの取得に使用）
    * @return 新しいJWTとリフレッシュトークンを含むHTTPステータス200 OKレスポンス。
    *         トークンが無効または期限切れの場合はHTTPステータス401 Unauthorizedとエラーメッセージ。
+   *         回数の制限を超えた場合はHTTPステータス429 Too Many Requests。
    */
   @PostMapping("/refreshToken")
-  public ResponseEntity<?> refreshToken(@RequestBody RefreshTokenRequest request) {
+  public ResponseEntity<?> refreshToken(@RequestBody RefreshTokenRequest request, HttpServletRequest httpRequest) {
     String requestRefreshToken = request.getRefreshToken();
 
+    // 回数の制限を超えた場合は、データベースを参照せずに拒否
+    final long retryAfterMillis = refreshRateLimiter.tryAcquire(requestRefreshToken, httpRequest.getRemoteAddr());
+    if (retryAfterMillis > 0) {
+      return tooManyRequests((retryAfterMillis + 999) / 1000, "Too many refresh requests.");
+    }
+
     try {
       // サービスを呼び出し、レスポンスに必要なデータモデルを取得
       JwtResponseWithRefreshToken responseModel = refreshTokenService.refreshAccessToken(requestRefreshToken);
@@ -108,13 +159,16 @@ public class AuthController {
   }
 
   /**
-   * 現在認証されているユーザーのリフレッシュトークンを無効化し、ログアウトさせます。
+   * 現在認証されているユーザーのリフレッシュトークンと、このリクエストで使用したアクセストークンを無効化し、ログアウトさせます。
    *
    * @param authentication Spring Securityによって提供される認証情報
+   * @param verifiedToken  {@link JwtRequestFilter}で検証したアクセストークン
    * @return 成功メッセージとHTTPステータス200 OKレスポンス
    */
   @PostMapping("/logout")
-  public ResponseEntity<?> logout(Authentication authentication) {
+  public ResponseEntity<?> logout(
+      Authentication authentication,
+      @RequestAttribute(name = JwtRequestFilter.VERIFIED_TOKEN_ATTRIBUTE, required = false) VerifiedToken verifiedToken) {
     // 1. ユーザー名からアカウントIDを取得
     // UserDetailsはAuthenticationから取得可能（AccountUserDetailsServiceの実装に依存）
     String username = authentication.getName();
@@ -129,7 +183,38 @@ public class AuthController {
     // 2. リフレッシュトークンを削除（無効化）
     refreshTokenService.deleteByAccountId(account.getId());
 
+    // 3. アクセストークンを有効期限前に無効化
+    if (verifiedToken != null) {
+      tokenRevocationService.revoke(verifiedToken);
+    }
+
     return ResponseEntity.ok("Logout successful. Refresh token revoked.");
   }
 
+  /**
+   * パスワードのハッシュ化処理を受け付けられなかった場合のレスポンスを作成します。
+   * クライアントが時間を置いて再試行できるよう、Retry-Afterヘッダーを付与します。
+   *
+   * @param e ハッシュ化処理が拒否されたことを示す例外
+   * @return HTTPステータス503 Service Unavailableのレスポンス
+   */
+  private ResponseEntity<?> serviceUnavailable(PasswordHashingRejectedException e) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(e.getMessage());
+  }
+
+  /**
+   * リクエストの回数が制限を超えた場合のレスポンスを作成します。
+   *
+   * @param retryAfterSeconds クライアントが再試行するまで待つべき秒数
+   * @param message           レスポンスボディのメッセージ
+   * @return HTTPステータス429 Too Many Requestsのレスポンス
+   */
+  private ResponseEntity<?> tooManyRequests(long retryAfterSeconds, String message) {
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+        .body(message);
+  }
+
 }
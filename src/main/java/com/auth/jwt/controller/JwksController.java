@@ -0,0 +1,125 @@
+package com.auth.jwt.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.auth.jwt.util.JwtTokenUtil;
+import com.auth.jwt.util.SigningKey;
+import com.auth.jwt.util.TokenDigests;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+
+/**
+ * トークンの検証に使用する公開鍵を、JWKS（JSON Web Key Set）として公開するRESTコントローラーです。
+ * リソースサーバーはこの公開鍵を取得してキャッシュすることで、認証サーバーに問い合わせることなくトークンを検証できます。
+ */
+@RestController
+public class JwksController {
+
+  private final JwtTokenUtil jwtTokenUtil;
+  private final ObjectMapper objectMapper;
+  private final CacheControl cacheControl;
+
+  /** 直近に作成したレスポンス。公開する鍵が変わった場合にのみ作り直します。 */
+  private volatile CachedJwks cachedJwks;
+
+  /**
+   * JwksControllerの新しいインスタンスを生成します。
+   *
+   * @param jwtTokenUtil JWTを扱うためのユーティリティ
+   * @param objectMapper JSONへの変換に使用するObjectMapper
+   * @param maxAge       クライアントがJWKSをキャッシュしてよい時間（秒）
+   */
+  public JwksController(
+      JwtTokenUtil jwtTokenUtil,
+      ObjectMapper objectMapper,
+      @Value("${jwt.jwks.max-age:300}") long maxAge) {
+    this.jwtTokenUtil = jwtTokenUtil;
+    this.objectMapper = objectMapper;
+    this.cacheControl = CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic();
+  }
+
+  /**
+   * 公開鍵の一覧をJWKS形式で返します。
+   * ETagを付与するため、リクエストのIf-None-Matchが一致する場合は本文を含まない304 Not Modifiedを返します。
+   *
+   * @return JWKS形式の公開鍵の一覧と、HTTPステータス200 OK
+   */
+  @GetMapping(path = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<String> jwks() {
+    final CachedJwks jwks = currentJwks();
+    // ETagがIf-None-Matchと一致する場合、Spring MVCが本文を省略して304を返す
+    return ResponseEntity.ok()
+        .eTag(jwks.etag())
+        .cacheControl(cacheControl)
+        .body(jwks.json());
+  }
+
+  /**
+   * 現在の公開鍵に対応するレスポンスを取得します。
+   * 鍵が差し替えられた場合は公開鍵のリストのインスタンスが変わるため、参照の比較のみで変更を検知します。
+   *
+   * @return 現在の公開鍵に対応するレスポンス
+   */
+  private CachedJwks currentJwks() {
+    final List<SigningKey> keys = jwtTokenUtil.getPublishedKeys();
+    CachedJwks jwks = cachedJwks;
+    if (jwks == null || jwks.keys() != keys) {
+      jwks = createJwks(keys);
+      cachedJwks = jwks;
+    }
+    return jwks;
+  }
+
+  /**
+   * 公開鍵の一覧からJWKS形式のJSONとETagを作成します。
+   *
+   * @param keys 公開鍵の一覧
+   * @return JSONとETag
+   */
+  private CachedJwks createJwks(List<SigningKey> keys) {
+    List<Map<String, Object>> jwks = new ArrayList<>();
+    for (SigningKey key : keys) {
+      Jwk<?> jwk = Jwks.builder()
+          .key(key.publicKey())
+          .id(key.keyId())
+          .algorithm(key.algorithm())
+          .publicKeyUse("sig")
+          .build();
+      jwks.add(new LinkedHashMap<>(jwk));
+    }
+    try {
+      final String json = objectMapper.writeValueAsString(Map.of("keys", jwks));
+      final byte[] digest = TokenDigests.sha256(json);
+      final String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+      return new CachedJwks(keys, json, etag);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Unable to serialize JWKS", e);
+    }
+  }
+
+  /**
+   * 公開鍵の一覧と、それに対応するJSONとETagの組み合わせです。
+   *
+   * @param keys 公開鍵の一覧
+   * @param json JWKS形式のJSON
+   * @param etag JSONの内容から求めたETag
+   */
+  private record CachedJwks(List<SigningKey> keys, String json, String etag) {
+  }
+}
@@ -0,0 +1,27 @@
+package com.auth.jwt.entity;
+
+import java.time.Instant;
+
+import lombok.Data;
+
+@Data
+public class AuthEvent {
+  /** 発生順に増加する通し番号 */
+  private Long seq;
+  private Type type;
+  /** 対象（USER_CHANGEDの場合はユーザー名、TOKEN_REVOKEDの場合はトークンのID） */
+  private String subject;
+  /** 対象の有効期限（TOKEN_REVOKEDの場合のみ） */
+  private Instant expiresAt;
+  private Instant createdAt;
+
+  /**
+   * 他のノードのキャッシュに反映が必要な変更の種類です。
+   */
+  public enum Type {
+    /** アカウントの登録やパスワードの変更 */
+    USER_CHANGED,
+    /** アクセストークンの無効化 */
+    TOKEN_REVOKED
+  }
+}
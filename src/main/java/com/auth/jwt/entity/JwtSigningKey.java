@@ -0,0 +1,24 @@
+package com.auth.jwt.entity;
+
+import java.time.Instant;
+
+import lombok.Data;
+
+@Data
+public class JwtSigningKey {
+  /** トークンのヘッダー（kid）に設定する鍵の識別子 */
+  private String kid;
+  /** 署名アルゴリズム（HS256、ES256、EdDSA） */
+  private String algorithm;
+  /** Base64エンコードされたシークレット（HS256の場合） */
+  private String secret;
+  /** PEM形式の秘密鍵（ES256、EdDSAの場合。検証専用の鍵では空） */
+  private String privateKey;
+  /** PEM形式の公開鍵（ES256、EdDSAの場合） */
+  private String publicKey;
+  /** 署名に使用する鍵の場合にtrue */
+  private boolean active;
+  /** 検証に使用する期限（この日時以降は読み込まない。期限なしの場合は空） */
+  private Instant notAfter;
+  private Instant createdAt;
+}
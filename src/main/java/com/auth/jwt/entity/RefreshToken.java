@@ -8,6 +8,9 @@ import lombok.Data;
 public class RefreshToken {
   private Long id;
   private Long accountId;
+  /** 発行したトークン文字列（データベースには保存せず、発行時のレスポンスにのみ使用） */
   private String token;
+  /** トークン文字列のSHA-256ダイジェスト（データベースにはこちらを保存し、検索にも使用） */
+  private byte[] tokenHash;
   private Instant expiryDate;
 }
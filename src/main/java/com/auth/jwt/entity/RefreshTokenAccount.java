@@ -0,0 +1,16 @@
+package com.auth.jwt.entity;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * リフレッシュトークンと、その所有者であるアカウントの情報をまとめて保持するクラスです。
+ * トークンの再発行に必要な情報を1回のクエリで取得するために使用します。
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class RefreshTokenAccount extends RefreshToken {
+  private String username;
+}
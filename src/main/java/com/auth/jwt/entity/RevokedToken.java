@@ -0,0 +1,13 @@
+package com.auth.jwt.entity;
+
+import java.time.Instant;
+
+import lombok.Data;
+
+@Data
+public class RevokedToken {
+  /** 無効化したアクセストークンのID（jtiクレーム） */
+  private String jti;
+  /** アクセストークンの有効期限（この日時以降は無効化の記録が不要になる） */
+  private Instant expiresAt;
+}
@@ -0,0 +1,80 @@
+package com.auth.jwt.filter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.auth.jwt.metrics.TokenOutcome;
+
+/**
+ * 認証失敗を理由ごとに集計し、一定間隔でまとめてログ出力するクラスです。
+ * 失敗のたびにログを出力すると、不正なリクエストが大量に届いた際にログ出力がボトルネックになるため、
+ * リクエスト処理中はカウンターを加算するだけとし、ログの量をリクエスト数に関係なく一定に抑えます。
+ */
+@Component
+public class AuthFailureLog {
+
+  private static final Logger log = LoggerFactory.getLogger(AuthFailureLog.class);
+
+  @Value("${auth.failure-log.interval:10000}")
+  private long interval;
+
+  private final Map<TokenOutcome, LongAdder> counters = new EnumMap<>(TokenOutcome.class);
+
+  /**
+   * AuthFailureLogの新しいインスタンスを生成します。
+   */
+  public AuthFailureLog() {
+    for (TokenOutcome outcome : TokenOutcome.values()) {
+      if (outcome != TokenOutcome.VALID) {
+        counters.put(outcome, new LongAdder());
+      }
+    }
+  }
+
+  /**
+   * 認証失敗を1件記録します。
+   * カウンターを加算するだけで、ログの出力やオブジェクトの生成は行いません。
+   *
+   * @param outcome 失敗の理由
+   */
+  public void record(TokenOutcome outcome) {
+    LongAdder counter = counters.get(outcome);
+    if (counter != null) {
+      counter.increment();
+    }
+  }
+
+  /**
+   * 前回の出力以降に記録された認証失敗を、理由ごとの件数として1行でログ出力します。
+   * 失敗が1件もなければ何も出力しません。
+   */
+  @Scheduled(
+      initialDelayString = "${auth.failure-log.interval:10000}",
+      fixedRateString = "${auth.failure-log.interval:10000}")
+  public void flush() {
+    StringBuilder summary = null;
+    for (Map.Entry<TokenOutcome, LongAdder> entry : counters.entrySet()) {
+      long count = entry.getValue().sumThenReset();
+      if (count == 0) {
+        continue;
+      }
+      if (summary == null) {
+        summary = new StringBuilder();
+      } else {
+        summary.append(", ");
+      }
+      summary.append(entry.getKey().tag()).append('=').append(count);
+    }
+
+    if (summary != null) {
+      log.warn("JWT authentication failures in the last {} ms: {}", interval, summary);
+    }
+  }
+}
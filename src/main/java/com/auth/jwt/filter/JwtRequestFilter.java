@@ -2,6 +2,7 @@ package com.auth.jwt.filter;
 
 import java.io.IOException;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,8 +10,13 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.auth.jwt.metrics.AuthMetrics;
+import com.auth.jwt.metrics.TokenOutcome;
+import com.auth.jwt.security.PublicPaths;
 import com.auth.jwt.service.AccountUserDetailsService;
+import com.auth.jwt.service.TokenRevocationService;
 import com.auth.jwt.util.JwtTokenUtil;
+import com.auth.jwt.util.VerifiedToken;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -25,18 +31,51 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
+  /** 検証済みトークンを格納するリクエスト属性名（ログアウト時にトークンを無効化するために使用） */
+  public static final String VERIFIED_TOKEN_ATTRIBUTE = JwtRequestFilter.class.getName() + ".verifiedToken";
+
+  /** 認証モード。"database"はリクエストごとにアカウント情報を取得し、"stateless"はトークンのクレームのみを使用します。 */
+  @Value("${jwt.auth-mode:database}")
+  private String authMode;
+
   private AccountUserDetailsService accountUserDetailsService;
   private JwtTokenUtil jwtTokenUtil;
+  private AuthMetrics authMetrics;
+  private AuthFailureLog authFailureLog;
+  private TokenRevocationService tokenRevocationService;
 
   /**
    * JwtRequestFilterの新しいインスタンスを生成します。
    *
    * @param accountUserDetailsService ユーザー情報を取得するためのサービス
    * @param jwtTokenUtil              JWTを扱うためのユーティリティ
+   * @param authMetrics               認証処理のメトリクス
+   * @param authFailureLog            認証失敗を集計してログ出力するクラス
+   * @param tokenRevocationService    無効化したトークンを管理するサービス
    */
-  public JwtRequestFilter(AccountUserDetailsService accountUserDetailsService, JwtTokenUtil jwtTokenUtil) {
+  public JwtRequestFilter(
+      AccountUserDetailsService accountUserDetailsService,
+      JwtTokenUtil jwtTokenUtil,
+      AuthMetrics authMetrics,
+      AuthFailureLog authFailureLog,
+      TokenRevocationService tokenRevocationService) {
     this.accountUserDetailsService = accountUserDetailsService;
     this.jwtTokenUtil = jwtTokenUtil;
+    this.authMetrics = authMetrics;
+    this.authFailureLog = authFailureLog;
+    this.tokenRevocationService = tokenRevocationService;
+  }
+
+  /**
+   * 認証不要なパス（{@link PublicPaths}）へのリクエストでは、フィルター処理を行わないよう判定します。
+   * ヘッダーの解析やログ出力を行わず、文字列の割り当ても発生しません。
+   *
+   * @param request HTTPリクエスト
+   * @return JWTの処理を省略するパスの場合にtrue
+   */
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return PublicPaths.matches(request);
   }
 
   /**
@@ -59,18 +98,31 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     // トークン取得
     final String jwtToken = extractJwtToken(request);
 
-    // トークンからアカウント名を取得
-    String username = null;
-    if (jwtToken != null) {
+    // トークンの署名と有効期限を一度だけ検証・解析
+    VerifiedToken verifiedToken = null;
+    if (jwtToken == null) {
+      authMetrics.recordToken(TokenOutcome.MISSING_HEADER, 0L);
+      authFailureLog.record(TokenOutcome.MISSING_HEADER);
+    } else {
+      final long start = System.nanoTime();
       try {
-        username = jwtTokenUtil.getUsernameFromToken(jwtToken);
+        verifiedToken = jwtTokenUtil.parseToken(jwtToken);
+        if (tokenRevocationService.isRevoked(verifiedToken)) {
+          verifiedToken = null;
+          authMetrics.recordToken(TokenOutcome.REVOKED, System.nanoTime() - start);
+          authFailureLog.record(TokenOutcome.REVOKED);
+        } else {
+          authMetrics.recordToken(TokenOutcome.VALID, System.nanoTime() - start);
+        }
       } catch (Exception e) {
-        logger.warn("JWT Token has expired or is invalid");
+        final TokenOutcome outcome = TokenOutcome.of(e);
+        authMetrics.recordToken(outcome, System.nanoTime() - start);
+        authFailureLog.record(outcome);
       }
     }
 
     // 認証情報をセット
-    setupAuthentication(request, username, jwtToken);
+    setupAuthentication(request, verifiedToken);
 
     // フィルター設定
     filterChain.doFilter(request, response);
@@ -92,31 +144,42 @@ public class JwtRequestFilter extends OncePerRequestFilter {
       return requestTokenHeader.substring(7);
     }
 
-    // JWTがBearerトークン形式でなければnullを返却
-    logger.warn("JWT Token does not begin with Bearer String");
+    // JWTがBearerトークン形式でなければnullを返却（ログはAuthFailureLogで集計して出力）
     return null;
   }
 
   /**
    * 認証情報が設定されていない場合、認証情報をセットアップします。
-   * ユーザー名とJWTトークンの有効性を検証し、有効であればSpring Securityの認証コンテキストに設定します。
+   * 検証済みトークンとアカウント情報を照合し、有効であればSpring Securityの認証コンテキストに設定します。
+   * ステートレス認証モードでは、アカウント情報を取得せずにトークンのクレームのみから認証情報を作成します。
    *
-   * @param request  HTTPリクエスト
-   * @param username ユーザー名
-   * @param jwtToken JWTトークン
+   * @param request       HTTPリクエスト
+   * @param verifiedToken 検証済みトークン（検証に失敗した場合は{@code null}）
    */
-  private void setupAuthentication(HttpServletRequest request, String username, String jwtToken) {
-    // 認証がまだ行われていないか、ユーザー名が有効な場合にのみ処理を実行
-    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-      // アカウント情報を取得
-      UserDetails userDetails = this.accountUserDetailsService.loadUserByUsername(username);
-      // トークンの有効性を検証
-      if (jwtTokenUtil.validateToken(jwtToken, userDetails)) {
+  private void setupAuthentication(HttpServletRequest request, VerifiedToken verifiedToken) {
+    // 認証がまだ行われていないか、トークンが有効な場合にのみ処理を実行
+    if (verifiedToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+      // アカウント情報を取得（ステートレス認証モードではトークンのクレームから作成）
+      UserDetails userDetails = isStatelessMode()
+          ? jwtTokenUtil.createUserDetails(verifiedToken)
+          : this.accountUserDetailsService.loadUserByUsername(verifiedToken.subject());
+      // トークンの有効性を検証（再解析は行わない）
+      if (jwtTokenUtil.validateToken(verifiedToken, userDetails)) {
         UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
             userDetails, null, userDetails.getAuthorities());
         authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+        request.setAttribute(VERIFIED_TOKEN_ATTRIBUTE, verifiedToken);
       }
     }
   }
+
+  /**
+   * ステートレス認証モードかどうかを判定します。
+   *
+   * @return jwt.auth-modeが"stateless"の場合にtrue
+   */
+  private boolean isStatelessMode() {
+    return "stateless".equalsIgnoreCase(authMode);
+  }
 }
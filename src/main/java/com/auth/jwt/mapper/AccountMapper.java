@@ -1,6 +1,8 @@
 package com.auth.jwt.mapper;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 import com.auth.jwt.entity.Account;
 
 @Mapper
@@ -9,4 +11,10 @@ public interface AccountMapper {
   Account findById(Long id);
 
   void save(Account account);
+
+  void updatePassword(@Param("username") String username, @Param("password") String password);
+
+  long countAll();
+
+  void scanUsernames(ResultHandler<String> handler);
 }
@@ -0,0 +1,22 @@
+package com.auth.jwt.mapper;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.auth.jwt.entity.AuthEvent;
+
+@Mapper
+public interface AuthEventMapper {
+  void save(AuthEvent authEvent);
+
+  List<AuthEvent> findAfter(
+      @Param("afterSeq") long afterSeq,
+      @Param("settleMillis") long settleMillis,
+      @Param("limit") int limit);
+
+  long findLastSeqBefore(@Param("ageMillis") long ageMillis);
+
+  int deleteOlderThan(@Param("ageMillis") long ageMillis);
+}
@@ -0,0 +1,14 @@
+package com.auth.jwt.mapper;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.auth.jwt.entity.JwtSigningKey;
+
+@Mapper
+public interface JwtSigningKeyMapper {
+  List<JwtSigningKey> findUsable(@Param("now") Instant now);
+}
@@ -1,16 +1,23 @@
 package com.auth.jwt.mapper;
 
+import java.time.Instant;
 import java.util.Optional;
 
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import com.auth.jwt.entity.RefreshToken;
+import com.auth.jwt.entity.RefreshTokenAccount;
 
 @Mapper
 public interface RefreshTokenMapper {
-  Optional<RefreshToken> findByToken(String token);
+  Optional<RefreshToken> findByToken(byte[] tokenHash);
+
+  Optional<RefreshTokenAccount> findWithAccountByToken(byte[] tokenHash);
 
   void save(RefreshToken refreshToken);
 
   Long deleteByAccountId(Long accountId);
-}
\ No newline at end of file
+
+  int deleteExpired(@Param("now") Instant now, @Param("batchSize") int batchSize);
+}
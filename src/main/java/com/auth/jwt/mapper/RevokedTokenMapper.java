@@ -0,0 +1,18 @@
+package com.auth.jwt.mapper;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import com.auth.jwt.entity.RevokedToken;
+
+@Mapper
+public interface RevokedTokenMapper {
+  List<RevokedToken> findUnexpired(@Param("now") Instant now);
+
+  void save(RevokedToken revokedToken);
+
+  int deleteExpired(@Param("now") Instant now);
+}
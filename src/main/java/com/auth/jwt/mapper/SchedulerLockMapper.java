@@ -0,0 +1,17 @@
+package com.auth.jwt.mapper;
+
+import java.time.Instant;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface SchedulerLockMapper {
+  int tryLock(
+      @Param("name") String name,
+      @Param("lockedBy") String lockedBy,
+      @Param("now") Instant now,
+      @Param("lockUntil") Instant lockUntil);
+
+  void unlock(@Param("name") String name, @Param("lockedBy") String lockedBy, @Param("now") Instant now);
+}
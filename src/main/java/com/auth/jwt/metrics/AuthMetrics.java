@@ -0,0 +1,170 @@
+package com.auth.jwt.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 認証処理の各段階の処理時間と件数を記録するメトリクスです。
+ * リクエストごとにメーターを検索しないよう、使用するメーターは生成時にすべて登録しておきます。
+ */
+@Component
+public class AuthMetrics {
+
+  private final Map<TokenOutcome, Counter> tokenRequestCounters = new EnumMap<>(TokenOutcome.class);
+  private final Map<TokenOutcome, Timer> tokenVerifyTimers = new EnumMap<>(TokenOutcome.class);
+  private final Timer userLookupFromCacheTimer;
+  private final Timer userLookupFromDatabaseTimer;
+  private final Timer passwordMatchTimer;
+  private final Timer passwordMismatchTimer;
+  private final Timer passwordUnknownUserTimer;
+  private final Timer tokenIssueTimer;
+  private final Map<RefreshOutcome, Timer> refreshTimers = new EnumMap<>(RefreshOutcome.class);
+  private final Timer logoutTimer;
+  private final Counter passwordRehashSuccessCounter;
+  private final Counter passwordRehashFailureCounter;
+
+  /**
+   * AuthMetricsの新しいインスタンスを生成し、使用するメーターを登録します。
+   *
+   * @param meterRegistry メトリクスの登録先
+   */
+  public AuthMetrics(MeterRegistry meterRegistry) {
+    for (TokenOutcome outcome : TokenOutcome.values()) {
+      tokenRequestCounters.put(outcome, Counter.builder("auth.token.requests")
+          .description("Requests processed by the JWT filter, by token outcome")
+          .tag("outcome", outcome.tag())
+          .register(meterRegistry));
+      if (outcome != TokenOutcome.MISSING_HEADER) {
+        tokenVerifyTimers.put(outcome, timer(meterRegistry, "auth.token.verify",
+            "Time taken to verify and parse a JWT", "outcome", outcome.tag()));
+      }
+    }
+    this.userLookupFromCacheTimer = timer(meterRegistry, "auth.user.lookup",
+        "Time taken to load account details", "source", "cache");
+    this.userLookupFromDatabaseTimer = timer(meterRegistry, "auth.user.lookup",
+        "Time taken to load account details", "source", "database");
+    this.passwordMatchTimer = timer(meterRegistry, "auth.password.check",
+        "Time taken to check a password", "outcome", "match");
+    this.passwordMismatchTimer = timer(meterRegistry, "auth.password.check",
+        "Time taken to check a password", "outcome", "mismatch");
+    this.passwordUnknownUserTimer = timer(meterRegistry, "auth.password.check",
+        "Time taken to check a password", "outcome", "unknown_user");
+    this.tokenIssueTimer = timer(meterRegistry, "auth.token.issue",
+        "Time taken to sign a new JWT", "type", "access");
+    for (RefreshOutcome outcome : RefreshOutcome.values()) {
+      refreshTimers.put(outcome, timer(meterRegistry, "auth.refresh",
+          "Time taken to refresh an access token", "outcome", outcome.name().toLowerCase()));
+    }
+    this.logoutTimer = timer(meterRegistry, "auth.logout",
+        "Time taken to revoke tokens on logout", "outcome", "success");
+    this.passwordRehashSuccessCounter = Counter.builder("auth.password.rehash")
+        .description("Password hashes upgraded to the current policy on login")
+        .tag("outcome", "success")
+        .register(meterRegistry);
+    this.passwordRehashFailureCounter = Counter.builder("auth.password.rehash")
+        .description("Password hashes upgraded to the current policy on login")
+        .tag("outcome", "failure")
+        .register(meterRegistry);
+  }
+
+  private static Timer timer(MeterRegistry meterRegistry, String name, String description, String tagKey,
+      String tagValue) {
+    return Timer.builder(name)
+        .description(description)
+        .tag(tagKey, tagValue)
+        .register(meterRegistry);
+  }
+
+  /**
+   * JWTフィルターでのトークンの検証結果を記録します。
+   *
+   * @param outcome      検証結果
+   * @param elapsedNanos 検証にかかった時間（ナノ秒）。ヘッダーがない場合は無視されます
+   */
+  public void recordToken(TokenOutcome outcome, long elapsedNanos) {
+    tokenRequestCounters.get(outcome).increment();
+    Timer timer = tokenVerifyTimers.get(outcome);
+    if (timer != null) {
+      timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * アカウント情報の取得時間を記録します。
+   *
+   * @param fromCache    キャッシュから取得した場合はtrue
+   * @param elapsedNanos 取得にかかった時間（ナノ秒）
+   */
+  public void recordUserLookup(boolean fromCache, long elapsedNanos) {
+    (fromCache ? userLookupFromCacheTimer : userLookupFromDatabaseTimer)
+        .record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * パスワードの照合時間を記録します。
+   *
+   * @param accountFound アカウントが存在した場合はtrue
+   * @param matched      パスワードが一致した場合はtrue
+   * @param elapsedNanos 照合にかかった時間（ナノ秒）
+   */
+  public void recordPasswordCheck(boolean accountFound, boolean matched, long elapsedNanos) {
+    Timer timer = !accountFound ? passwordUnknownUserTimer : matched ? passwordMatchTimer : passwordMismatchTimer;
+    timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * アクセストークンの発行時間を記録します。
+   *
+   * @param elapsedNanos 発行にかかった時間（ナノ秒）
+   */
+  public void recordTokenIssue(long elapsedNanos) {
+    tokenIssueTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * アクセストークンの再発行の結果と処理時間を記録します。
+   *
+   * @param outcome      再発行の結果
+   * @param elapsedNanos 処理にかかった時間（ナノ秒）
+   */
+  public void recordRefresh(RefreshOutcome outcome, long elapsedNanos) {
+    refreshTimers.get(outcome).record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * ログアウト時のトークン無効化にかかった時間を記録します。
+   *
+   * @param elapsedNanos 処理にかかった時間（ナノ秒）
+   */
+  public void recordLogout(long elapsedNanos) {
+    logoutTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * ログイン時のパスワードの再ハッシュ化の結果を記録します。
+   *
+   * @param succeeded 再ハッシュ化したハッシュを保存できた場合はtrue
+   */
+  public void recordPasswordRehash(boolean succeeded) {
+    (succeeded ? passwordRehashSuccessCounter : passwordRehashFailureCounter).increment();
+  }
+
+  /**
+   * アクセストークンの再発行の結果を表す列挙型です。
+   */
+  public enum RefreshOutcome {
+    /** 再発行に成功した */
+    SUCCESS,
+    /** リフレッシュトークンが期限切れだった */
+    EXPIRED,
+    /** リフレッシュトークンが見つからなかった */
+    NOT_FOUND
+  }
+}
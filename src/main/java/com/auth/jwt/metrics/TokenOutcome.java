@@ -0,0 +1,52 @@
+package com.auth.jwt.metrics;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+/**
+ * リクエストに含まれるJWTの検証結果を表す列挙型です。
+ * メトリクスのタグや、認証失敗の集計に使用します。
+ */
+public enum TokenOutcome {
+  /** 有効なトークン */
+  VALID("valid"),
+  /** 有効期限切れのトークン */
+  EXPIRED("expired"),
+  /** 署名が一致しないトークン */
+  BAD_SIGNATURE("bad_signature"),
+  /** 形式が不正なトークン */
+  MALFORMED("malformed"),
+  /** 有効期限前に無効化されたトークン */
+  REVOKED("revoked"),
+  /** Bearer形式のAuthorizationヘッダーがない */
+  MISSING_HEADER("missing_header");
+
+  private final String tag;
+
+  TokenOutcome(String tag) {
+    this.tag = tag;
+  }
+
+  /**
+   * @return メトリクスのタグとして使用する値
+   */
+  public String tag() {
+    return tag;
+  }
+
+  /**
+   * トークンの検証中に発生した例外から、検証結果を判定します。
+   *
+   * @param e 検証中に発生した例外
+   * @return 例外に対応する検証結果
+   */
+  public static TokenOutcome of(Exception e) {
+    if (e instanceof ExpiredJwtException) {
+      return EXPIRED;
+    }
+    if (e instanceof SignatureException) {
+      return BAD_SIGNATURE;
+    }
+    return MALFORMED;
+  }
+}
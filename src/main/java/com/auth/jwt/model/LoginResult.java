@@ -0,0 +1,17 @@
+package com.auth.jwt.model;
+
+import com.auth.jwt.entity.Account;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * ログイン処理の結果を表すクラスです。
+ * 認証に使用したアカウントを保持し、リフレッシュトークンの発行などで再取得せずに使い回せるようにします。
+ */
+@Data
+@AllArgsConstructor
+public class LoginResult {
+  private Account account;
+  private String jwtToken;
+}
@@ -0,0 +1,121 @@
+package com.auth.jwt.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * パスワードのハッシュ化と照合を、専用のサイズ固定スレッドプールで実行する{@link PasswordEncoder}です。
+ * BCryptなどのCPU負荷の高い処理をリクエスト処理スレッドから切り離し、同時実行数と待ち行列の長さを制限します。
+ * 待ち行列が埋まっている場合は処理を待たずに{@link PasswordHashingRejectedException}をスローするため、
+ * ログインが集中しても他のエンドポイントのCPU時間が奪われません。
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+  private final PasswordEncoder delegate;
+  private final ThreadPoolExecutor executor;
+  private final long timeoutMillis;
+
+  /**
+   * BoundedPasswordEncoderの新しいインスタンスを生成します。
+   *
+   * @param delegate      実際のハッシュ化・照合を行うエンコーダー
+   * @param poolSize      ハッシュ化に使用するスレッド数（0以下の場合はCPUコア数）
+   * @param queueCapacity 実行待ちにできる処理の最大数
+   * @param timeoutMillis 処理の完了を待つ最大時間（ミリ秒）
+   */
+  public BoundedPasswordEncoder(PasswordEncoder delegate, int poolSize, int queueCapacity, long timeoutMillis) {
+    int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    this.delegate = delegate;
+    this.timeoutMillis = timeoutMillis;
+    this.executor = new ThreadPoolExecutor(
+        threads,
+        threads,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        new HashingThreadFactory(),
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return execute(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return execute(() -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    // ハッシュの形式を確認するだけの軽い処理のため、呼び出し元のスレッドで実行する
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  /**
+   * 処理をハッシュ化用のスレッドプールで実行し、その結果を返します。
+   *
+   * @param <T>  処理結果の型
+   * @param task 実行する処理
+   * @return 処理結果
+   * @throws PasswordHashingRejectedException 待ち行列が埋まっている、または待ち時間が上限を超えた場合
+   */
+  private <T> T execute(Callable<T> task) {
+    final Future<T> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      throw new PasswordHashingRejectedException("Password hashing capacity exceeded. Please retry later.");
+    }
+
+    try {
+      return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw new PasswordHashingRejectedException("Password hashing timed out. Please retry later.");
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new PasswordHashingRejectedException("Password hashing was interrupted.");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * アプリケーション終了時にスレッドプールを停止します。
+   */
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+
+  /**
+   * ハッシュ化用スレッドに識別しやすい名前を付けるスレッドファクトリです。
+   */
+  private static final class HashingThreadFactory implements ThreadFactory {
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "password-hashing-" + sequence.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.auth.jwt.security;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.auth.jwt.util.TokenBucketTable;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 各ノードのメモリ上のトークンバケットで、アクセストークンの再発行を制限する{@link RefreshRateLimiter}の実装です。
+ * バケットは固定数のスロットで管理するため、大量のリフレッシュトークンやIPアドレスが送られてきてもメモリ使用量は一定です。
+ * 制限はノードごとに行うため、ロードバランサーで振り分ける場合の実効的な上限は概ねノード数倍になります。
+ */
+@Component
+@ConditionalOnProperty(name = "auth.refresh-rate-limit.store", havingValue = "local", matchIfMissing = true)
+public class LocalRefreshRateLimiter implements RefreshRateLimiter {
+
+  private final boolean enabled;
+  private final TokenBucketTable tokenBuckets;
+  private final TokenBucketTable ipBuckets;
+  private final Counter limitedByToken;
+  private final Counter limitedByIp;
+
+  /**
+   * LocalRefreshRateLimiterの新しいインスタンスを生成します。
+   *
+   * @param enabled             再発行の制限を有効にする場合はtrue
+   * @param slots               リフレッシュトークン・IPアドレスそれぞれのバケットのスロット数
+   * @param tokenCapacity       1つのリフレッシュトークンで連続して許可する再発行の回数
+   * @param tokenRefillInterval リフレッシュトークンごとのバケットにトークンが1つ補充されるまでの時間（ミリ秒）
+   * @param ipCapacity          1つのIPアドレスから連続して許可する再発行の回数
+   * @param ipRefillInterval    IPアドレスごとのバケットにトークンが1つ補充されるまでの時間（ミリ秒）
+   * @param meterRegistry       メトリクスの登録先
+   */
+  public LocalRefreshRateLimiter(
+      @Value("${auth.refresh-rate-limit.enabled:true}") boolean enabled,
+      @Value("${auth.refresh-rate-limit.slots:65536}") int slots,
+      @Value("${auth.refresh-rate-limit.per-token.capacity:5}") int tokenCapacity,
+      @Value("${auth.refresh-rate-limit.per-token.refill-interval:10000}") long tokenRefillInterval,
+      @Value("${auth.refresh-rate-limit.per-ip.capacity:60}") int ipCapacity,
+      @Value("${auth.refresh-rate-limit.per-ip.refill-interval:500}") long ipRefillInterval,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.tokenBuckets = new TokenBucketTable(slots, tokenCapacity, tokenRefillInterval);
+    this.ipBuckets = new TokenBucketTable(slots, ipCapacity, ipRefillInterval);
+    this.limitedByToken = Counter.builder("auth.refresh.limited")
+        .description("Number of refresh requests rejected by the rate limiter")
+        .tag("reason", "token")
+        .register(meterRegistry);
+    this.limitedByIp = Counter.builder("auth.refresh.limited")
+        .description("Number of refresh requests rejected by the rate limiter")
+        .tag("reason", "ip")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public long tryAcquire(String refreshToken, String clientIp) {
+    if (!enabled) {
+      return 0;
+    }
+    final String tokenKey = refreshToken != null ? refreshToken : "";
+    final String ipKey = clientIp != null ? clientIp : "";
+
+    // 両方のバケットを確認してから消費する。制限中のリフレッシュトークンの再試行が、
+    // 同じIPアドレスから送られる他のリフレッシュトークンの分まで消費しないようにするため
+    long waitNanos = tokenBuckets.waitTime(tokenKey);
+    if (waitNanos > 0) {
+      return limited(limitedByToken, waitNanos);
+    }
+    waitNanos = ipBuckets.waitTime(ipKey);
+    if (waitNanos > 0) {
+      return limited(limitedByIp, waitNanos);
+    }
+
+    // 確認の後に同じキーの他のリクエストが先に消費した場合に限り、ここで拒否される
+    waitNanos = tokenBuckets.tryAcquire(tokenKey);
+    if (waitNanos > 0) {
+      return limited(limitedByToken, waitNanos);
+    }
+    waitNanos = ipBuckets.tryAcquire(ipKey);
+    if (waitNanos > 0) {
+      return limited(limitedByIp, waitNanos);
+    }
+    return 0;
+  }
+
+  private static long limited(Counter counter, long waitNanos) {
+    counter.increment();
+    return toMillis(waitNanos);
+  }
+
+  private static long toMillis(long nanos) {
+    return Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+  }
+}
@@ -0,0 +1,106 @@
+package com.auth.jwt.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.auth.jwt.util.DecayingCountMinSketch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * ログインの失敗回数をユーザー名ごと・クライアントのIPアドレスごとに数え、しきい値を超えたログインを拒否するクラスです。
+ * 拒否はパスワードの照合より前に行うため、誤ったパスワードを大量に送りつけられてもハッシュ計算でCPUを使い切ることはありません。
+ * 失敗回数は{@link DecayingCountMinSketch}で数えるため、大量のユーザー名やIPアドレスが送られてきてもメモリ使用量は一定です。
+ */
+@Component
+public class LoginThrottle {
+
+  private final boolean enabled;
+  private final long usernameThreshold;
+  private final long ipThreshold;
+  private final DecayingCountMinSketch usernameFailures;
+  private final DecayingCountMinSketch ipFailures;
+  private final Counter throttledByUsername;
+  private final Counter throttledByIp;
+
+  /**
+   * LoginThrottleの新しいインスタンスを生成します。
+   *
+   * @param enabled           ログインの制限を有効にする場合はtrue
+   * @param usernameThreshold 1つのユーザー名に対して窓の長さの間に許容する失敗回数
+   * @param ipThreshold       1つのIPアドレスから窓の長さの間に許容する失敗回数
+   * @param window            失敗回数を数える窓の長さ（ミリ秒）
+   * @param depth             失敗回数を数えるsketchのハッシュ関数の数
+   * @param width             失敗回数を数えるsketchの1行あたりのカウンター数
+   * @param meterRegistry     メトリクスの登録先
+   */
+  public LoginThrottle(
+      @Value("${auth.login-throttle.enabled:true}") boolean enabled,
+      @Value("${auth.login-throttle.username-threshold:10}") long usernameThreshold,
+      @Value("${auth.login-throttle.ip-threshold:100}") long ipThreshold,
+      @Value("${auth.login-throttle.window:60000}") long window,
+      @Value("${auth.login-throttle.depth:4}") int depth,
+      @Value("${auth.login-throttle.width:65536}") int width,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.usernameThreshold = usernameThreshold;
+    this.ipThreshold = ipThreshold;
+    this.usernameFailures = new DecayingCountMinSketch(depth, width, window);
+    this.ipFailures = new DecayingCountMinSketch(depth, width, window);
+    this.throttledByUsername = Counter.builder("auth.login.throttled")
+        .description("Number of login attempts rejected before password check")
+        .tag("reason", "username")
+        .register(meterRegistry);
+    this.throttledByIp = Counter.builder("auth.login.throttled")
+        .description("Number of login attempts rejected before password check")
+        .tag("reason", "ip")
+        .register(meterRegistry);
+  }
+
+  /**
+   * ログインを試行してよいかを判定します。
+   *
+   * @param username ログインするユーザー名
+   * @param clientIp クライアントのIPアドレス
+   * @return 失敗回数がしきい値に達しており、ログインを拒否する場合にtrue
+   */
+  public boolean isThrottled(String username, String clientIp) {
+    if (!enabled) {
+      return false;
+    }
+    if (usernameFailures.estimate(key(username)) >= usernameThreshold) {
+      throttledByUsername.increment();
+      return true;
+    }
+    if (ipFailures.estimate(key(clientIp)) >= ipThreshold) {
+      throttledByIp.increment();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * ログインの失敗を記録します。
+   *
+   * @param username ログインに失敗したユーザー名
+   * @param clientIp クライアントのIPアドレス
+   */
+  public void recordFailure(String username, String clientIp) {
+    if (enabled) {
+      usernameFailures.increment(key(username));
+      ipFailures.increment(key(clientIp));
+    }
+  }
+
+  /**
+   * @return 拒否したクライアントに再試行を促すまでの秒数
+   */
+  public long retryAfterSeconds() {
+    return Math.max(1, usernameFailures.windowMillis() / 1000);
+  }
+
+  private static String key(String value) {
+    return value != null ? value : "";
+  }
+}
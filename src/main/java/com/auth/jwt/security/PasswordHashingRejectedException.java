@@ -0,0 +1,17 @@
+package com.auth.jwt.security;
+
+/**
+ * パスワードのハッシュ化・照合処理を受け付けられなかった場合にスローされる例外です。
+ * ハッシュ化用のスレッドプールとキューが埋まっている場合や、待ち時間が上限を超えた場合に発生します。
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+  /**
+   * PasswordHashingRejectedExceptionの新しいインスタンスを生成します。
+   *
+   * @param message 例外メッセージ
+   */
+  public PasswordHashingRejectedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,105 @@
+package com.auth.jwt.security;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * パスワードのハッシュ化方式とコストを決定するポリシーです。
+ * 設定されたアルゴリズムで新しいハッシュを作成し、既存のハッシュはその接頭辞（{bcrypt}など）に応じた方式で照合する
+ * {@link DelegatingPasswordEncoder}を作成します。
+ * BCryptの強度が指定されていない場合は、起動時に実際にハッシュ化を行い、目標時間に収まる最大の強度を選びます。
+ */
+@Component
+public class PasswordPolicy {
+
+  private static final Logger log = LoggerFactory.getLogger(PasswordPolicy.class);
+
+  /** BCryptで指定できる強度の上限 */
+  private static final int MAX_BCRYPT_STRENGTH = 31;
+
+  private final String algorithm;
+  private final int bcryptStrength;
+  private final int minBcryptStrength;
+  private final long targetHashTime;
+
+  /**
+   * PasswordPolicyの新しいインスタンスを生成します。
+   *
+   * @param algorithm         新しいハッシュの作成に使用するアルゴリズム（bcrypt、pbkdf2、argon2）
+   * @param bcryptStrength    BCryptの強度（0の場合は起動時に自動で決定）
+   * @param minBcryptStrength 自動で決定する場合の強度の下限
+   * @param targetHashTime    自動で決定する場合の1回あたりのハッシュ化時間の目標（ミリ秒）
+   */
+  public PasswordPolicy(
+      @Value("${auth.password.algorithm:bcrypt}") String algorithm,
+      @Value("${auth.password.bcrypt-strength:0}") int bcryptStrength,
+      @Value("${auth.password.min-bcrypt-strength:10}") int minBcryptStrength,
+      @Value("${auth.password.target-hash-time:250}") long targetHashTime) {
+    this.algorithm = algorithm;
+    this.bcryptStrength = bcryptStrength;
+    this.minBcryptStrength = minBcryptStrength;
+    this.targetHashTime = targetHashTime;
+  }
+
+  /**
+   * ポリシーに従ったPasswordEncoderを作成します。
+   * 接頭辞のない既存のハッシュはBCryptとして照合され、
+   * {@link PasswordEncoder#upgradeEncoding(String)}によって再ハッシュ化の対象と判定されます。
+   *
+   * @return ポリシーに従ったDelegatingPasswordEncoder
+   */
+  public PasswordEncoder createPasswordEncoder() {
+    BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(
+        bcryptStrength > 0 ? bcryptStrength : calibrateBcryptStrength());
+
+    Map<String, PasswordEncoder> encoders = new HashMap<>();
+    encoders.put("bcrypt", bcrypt);
+    encoders.put("pbkdf2", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+    encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+    String idForEncode = algorithm.toLowerCase();
+    if (!encoders.containsKey(idForEncode)) {
+      throw new IllegalArgumentException("Unsupported password hashing algorithm: " + algorithm);
+    }
+
+    DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(idForEncode, encoders);
+    // 接頭辞のない従来のハッシュはBCryptとして照合する
+    passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+    return passwordEncoder;
+  }
+
+  /**
+   * 現在のハードウェアで実際にハッシュ化を行い、目標時間に収まる最大のBCrypt強度を求めます。
+   * 強度が1上がるごとに処理時間はおよそ2倍になるため、目標時間を超えた時点で計測を打ち切ります。
+   *
+   * @return 目標時間に収まる最大の強度（下限を下回る場合は下限の値）
+   */
+  private int calibrateBcryptStrength() {
+    // JITのウォームアップを兼ねて一度ハッシュ化しておく
+    new BCryptPasswordEncoder(minBcryptStrength).encode("calibration");
+
+    int strength = minBcryptStrength;
+    while (strength < MAX_BCRYPT_STRENGTH) {
+      long start = System.nanoTime();
+      new BCryptPasswordEncoder(strength + 1).encode("calibration");
+      long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+      if (elapsedMillis > targetHashTime) {
+        break;
+      }
+      strength++;
+    }
+
+    log.info("Calibrated BCrypt strength to {} (target hash time {} ms)", strength, targetHashTime);
+    return strength;
+  }
+}
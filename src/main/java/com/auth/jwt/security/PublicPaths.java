@@ -0,0 +1,71 @@
+package com.auth.jwt.security;
+
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * 認証なしでアクセスできるパスの一覧です。
+ * SecurityConfigでのアクセス許可（permitAll）と、JwtRequestFilterでのJWTの処理の省略の両方が同じ{@link #MATCHER}で判定するため、
+ * 一方だけを変更して食い違うことはありません。
+ * 各パス自身と、その配下のパスが対象です。
+ */
+public final class PublicPaths {
+
+  /** 認証なしでアクセスでき、JWTの処理も省略するパス */
+  private static final String[] PATHS = {
+      "/api/auth/login",
+      "/api/auth/register",
+      "/api/auth/refreshToken",
+      "/h2-console",
+      "/actuator/health",
+      "/actuator/prometheus",
+      "/.well-known/jwks.json"
+  };
+
+  /**
+   * 認証なしでアクセスできるが、JWTの処理は行うパス。
+   * ログアウトは、有効なトークンが送られた場合にそのトークンを無効化するため、JWTを検証します。
+   */
+  public static final String LOGOUT = "/api/auth/logout";
+
+  /** JWTの処理を省略するパスへのリクエストに一致するマッチャー（ログアウトは含みません） */
+  public static final RequestMatcher MATCHER = PublicPaths::matches;
+
+  private PublicPaths() {
+  }
+
+  /**
+   * リクエストがJWTの処理を省略するパスへのものかを判定します。
+   * 文字列の割り当てを行わずに、リクエストURIのコンテキストパス以降を比較します。
+   *
+   * @param request HTTPリクエスト
+   * @return JWTの処理を省略するパスの場合にtrue
+   */
+  public static boolean matches(HttpServletRequest request) {
+    final String uri = request.getRequestURI();
+    final int offset = request.getContextPath().length();
+    for (String path : PATHS) {
+      if (matchesPath(uri, offset, path)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * リクエストURIのコンテキストパス以降が、指定したパス自身またはその配下かどうかを判定します。
+   *
+   * @param uri    リクエストURI
+   * @param offset コンテキストパスの長さ
+   * @param path   判定するパス
+   * @return 一致する場合にtrue
+   */
+  private static boolean matchesPath(String uri, int offset, String path) {
+    if (!uri.startsWith(path, offset)) {
+      return false;
+    }
+    final int end = offset + path.length();
+    return uri.length() == end || uri.charAt(end) == '/';
+  }
+}
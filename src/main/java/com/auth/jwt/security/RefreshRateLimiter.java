@@ -0,0 +1,18 @@
+package com.auth.jwt.security;
+
+/**
+ * リフレッシュトークンによるアクセストークンの再発行を、リフレッシュトークンごと・クライアントのIPアドレスごとに制限するインターフェースです。
+ * 既定では各ノードのメモリ上で制限する{@link LocalRefreshRateLimiter}を使用します。
+ * 複数のノードで制限を共有する場合は、共有ストアを使用する実装を登録し、auth.refresh-rate-limit.storeを"local"以外に設定してください。
+ */
+public interface RefreshRateLimiter {
+
+  /**
+   * 再発行のリクエストを1回分許可するかを判定します。
+   *
+   * @param refreshToken リクエストされたリフレッシュトークン
+   * @param clientIp     クライアントのIPアドレス
+   * @return 許可する場合は0。許可しない場合は、再試行できるまでの時間（ミリ秒）
+   */
+  long tryAcquire(String refreshToken, String clientIp);
+}
@@ -1,15 +1,17 @@
 package com.auth.jwt.service;
 
-import org.springframework.security.authentication.AuthenticationManager;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.DisabledException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import com.auth.jwt.entity.Account;
 import com.auth.jwt.mapper.AccountMapper;
+import com.auth.jwt.metrics.AuthMetrics;
+import com.auth.jwt.model.LoginResult;
 import com.auth.jwt.util.JwtTokenUtil;
 
 /**
@@ -18,32 +20,49 @@ import com.auth.jwt.util.JwtTokenUtil;
  */
 @Service
 public class AccountService {
+  private static final Logger log = LoggerFactory.getLogger(AccountService.class);
+
   private final AccountMapper accountMapper;
   private final PasswordEncoder passwordEncoder;
-  private final AuthenticationManager authenticationManager;
   private final JwtTokenUtil jwtTokenUtil;
   private final AccountUserDetailsService accountUserDetailsService;
+  private final AuthMetrics authMetrics;
+  private final AuthEventPublisher authEventPublisher;
+  private final UnknownUsernameFilter unknownUsernameFilter;
+
+  /**
+   * 存在しないユーザー名でログインされた場合に照合するダミーのハッシュ。
+   * ユーザーの有無で処理時間が変わり、ユーザー名を推測されることを防ぎます。
+   */
+  private final String dummyPasswordHash;
 
   /**
    * AccountServiceの新しいインスタンスを生成します。
    *
    * @param accountMapper             アカウントデータへのアクセスを提供するマッパー
    * @param passwordEncoder           パスワードのハッシュ化を行うエンコーダー
-   * @param authenticationManager     認証処理を管理するマネージャー
    * @param jwtTokenUtil              JWTを扱うためのユーティリティ
    * @param accountUserDetailsService ユーザー詳細情報をロードするサービス
+   * @param authMetrics               認証処理のメトリクス
+   * @param authEventPublisher        他のノードに変更を伝えるイベントの記録先
+   * @param unknownUsernameFilter     存在しないユーザー名をデータベースを参照せずに判定するフィルター
    */
   public AccountService(
       AccountMapper accountMapper,
       PasswordEncoder passwordEncoder,
-      AuthenticationManager authenticationManager,
       JwtTokenUtil jwtTokenUtil,
-      AccountUserDetailsService accountUserDetailsService) {
+      AccountUserDetailsService accountUserDetailsService,
+      AuthMetrics authMetrics,
+      AuthEventPublisher authEventPublisher,
+      UnknownUsernameFilter unknownUsernameFilter) {
     this.accountMapper = accountMapper;
     this.passwordEncoder = passwordEncoder;
-    this.authenticationManager = authenticationManager;
     this.jwtTokenUtil = jwtTokenUtil;
     this.accountUserDetailsService = accountUserDetailsService;
+    this.authMetrics = authMetrics;
+    this.authEventPublisher = authEventPublisher;
+    this.unknownUsernameFilter = unknownUsernameFilter;
+    this.dummyPasswordHash = passwordEncoder.encode(UUID.randomUUID().toString());
   }
 
   /**
@@ -58,6 +77,21 @@ public class AccountService {
       throw new IllegalArgumentException("ユーザー名が既に存在します。");
     }
     accountMapper.save(createAccount(username, password));
+    accountUserDetailsService.evictUser(username);
+    authEventPublisher.userChanged(username);
+  }
+
+  /**
+   * アカウントのパスワードを変更します。
+   * パスワードはハッシュ化して保存され、キャッシュ済みのアカウント情報は破棄されます（他のノードにはイベントで伝えます）。
+   *
+   * @param username    ユーザー名
+   * @param newPassword 新しいパスワード
+   */
+  public void changePassword(String username, String newPassword) {
+    accountMapper.updatePassword(username, passwordEncoder.encode(newPassword));
+    accountUserDetailsService.evictUser(username);
+    authEventPublisher.userChanged(username);
   }
 
   /**
@@ -76,60 +110,90 @@ public class AccountService {
   }
 
   /**
-   * ユーザーのログインを試み、成功した場合はJWTトークンを返します。
+   * ユーザーのログインを試み、成功した場合はアカウント情報とJWTトークンを返します。
+   * アカウントの取得は1回だけ行い、取得したアカウントをパスワードの照合、トークンの発行、
+   * および呼び出し元でのリフレッシュトークンの発行に使い回します。
+   * 保存されているハッシュが現在のポリシーより弱い場合は、ログイン時のパスワードで再ハッシュ化して保存し直します。
+   * 再ハッシュ化は可能な場合にのみ行い、失敗しても既存のハッシュのままログインを成功させます。
+   * 存在しないことが確実なユーザー名はデータベースを参照しませんが、ダミーのハッシュとの照合は行うため、処理時間からユーザーの有無は判別できません。
    *
    * @param username ユーザー名
    * @param password パスワード
-   * @return 認証成功時に生成されたJWTトークン
-   * @throws DisabledException         ユーザーアカウントが無効な場合
-   * @throws BadCredentialsException   パスワードが間違っている場合
-   * @throws UsernameNotFoundException ユーザー名が見つからない場合
+   * @return 認証されたアカウントと、生成されたJWTトークン
+   * @throws BadCredentialsException ユーザー名が見つからない、またはパスワードが間違っている場合
    */
-  public String login(String username, String password)
-      throws DisabledException, BadCredentialsException, UsernameNotFoundException {
+  public LoginResult login(String username, String password) throws BadCredentialsException {
+    // アカウント情報を取得（ログイン1回につき1クエリ。存在しないことが確実なユーザー名はクエリを行わない）
+    final long start = System.nanoTime();
+    final Account account;
+    if (unknownUsernameFilter.isUnknown(username)) {
+      account = null;
+      authMetrics.recordUserLookup(true, System.nanoTime() - start);
+    } else {
+      account = unknownUsernameFilter.load(username, () -> accountMapper.findByUsername(username));
+      authMetrics.recordUserLookup(false, System.nanoTime() - start);
+    }
+
     // 認証
-    authenticate(username, password);
+    authenticate(account, password);
 
-    // アカウント情報を取得
-    final UserDetails userDetails = accountUserDetailsService.loadUserByUsername(username);
+    // ハッシュが現在のポリシーより弱い場合は再ハッシュ化
+    if (passwordEncoder.upgradeEncoding(account.getPassword())) {
+      upgradePasswordHash(username, password);
+    }
 
     // トークン発行
-    return jwtTokenUtil.generateToken(userDetails);
+    final UserDetails userDetails = accountUserDetailsService.createUserDetails(account);
+    return new LoginResult(account, jwtTokenUtil.generateToken(userDetails));
   }
 
   /**
-   * ユーザーの認証を行います。
+   * ログインに成功したアカウントのパスワードを、現在のポリシーで再ハッシュ化して保存します。
+   * ハッシュ化用のスレッドプールが埋まっている場合やデータベースへの保存に失敗した場合も、
+   * 既存のハッシュで照合できているためログインは失敗させず、次回のログインで再度試みます。
    *
    * @param username ユーザー名
-   * @param password パスワード
-   * @throws DisabledException       ユーザーアカウントが無効な場合
-   * @throws BadCredentialsException パスワードが間違っている場合
+   * @param password 照合に成功したパスワード
    */
-  private void authenticate(String username, String password) throws DisabledException, BadCredentialsException {
+  private void upgradePasswordHash(String username, String password) {
     try {
-      authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
-    } catch (DisabledException | BadCredentialsException e) {
-      throw e;
+      changePassword(username, password);
+      authMetrics.recordPasswordRehash(true);
+    } catch (RuntimeException e) {
+      authMetrics.recordPasswordRehash(false);
+      log.warn("Failed to upgrade the password hash on login; keeping the existing hash until the next login.", e);
     }
   }
 
   /**
-   * ユーザー名に基づいてアカウント情報を取得します。
+   * 取得済みのアカウントに対してパスワードを照合します。
+   * アカウントが存在しない場合もダミーのハッシュと照合し、ユーザーの有無によって処理時間が変わらないようにします。
    *
-   * @param username 検索するユーザー名
-   * @return ユーザー名に一致するアカウントエンティティ
+   * @param account  ユーザー名で取得したアカウント（存在しない場合は{@code null}）
+   * @param password パスワード
+   * @throws BadCredentialsException ユーザー名が見つからない、またはパスワードが間違っている場合
    */
-  public Account findByUsername(String username) {
-    return accountMapper.findByUsername(username);
+  private void authenticate(Account account, String password) throws BadCredentialsException {
+    final long start = System.nanoTime();
+    if (account == null) {
+      passwordEncoder.matches(password, dummyPasswordHash);
+      authMetrics.recordPasswordCheck(false, false, System.nanoTime() - start);
+      throw new BadCredentialsException("Bad credentials");
+    }
+    boolean matched = passwordEncoder.matches(password, account.getPassword());
+    authMetrics.recordPasswordCheck(true, matched, System.nanoTime() - start);
+    if (!matched) {
+      throw new BadCredentialsException("Bad credentials");
+    }
   }
 
   /**
-   * アカウントIDに基づいてアカウント情報を取得します。
+   * ユーザー名に基づいてアカウント情報を取得します。
    *
-   * @param id 検索するアカウントID
-   * @return アカウントIDに一致するアカウントエンティティ
+   * @param username 検索するユーザー名
+   * @return ユーザー名に一致するアカウントエンティティ
    */
-  public Account findById(Long id) {
-    return accountMapper.findById(id);
+  public Account findByUsername(String username) {
+    return accountMapper.findByUsername(username);
   }
 }
@@ -2,6 +2,8 @@ package com.auth.jwt.service;
 
 import com.auth.jwt.entity.Account;
 import com.auth.jwt.mapper.AccountMapper;
+import com.auth.jwt.metrics.AuthMetrics;
+import com.auth.jwt.util.SingleFlight;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -19,19 +21,37 @@ import java.util.ArrayList;
 public class AccountUserDetailsService implements UserDetailsService {
 
   private AccountMapper accountMapper;
+  private UserDetailsCache userDetailsCache;
+  private AuthMetrics authMetrics;
+  private UnknownUsernameFilter unknownUsernameFilter;
+
+  /** キャッシュにないユーザーへの同時のロードを、1回のデータベースの取得にまとめる */
+  private final SingleFlight<String, Account> accountLoads = new SingleFlight<>();
 
   /**
    * AccountUserDetailsServiceの新しいインスタンスを生成します。
    *
-   * @param accountMapper アカウントデータへのアクセスを提供するマッパー
+   * @param accountMapper    アカウントデータへのアクセスを提供するマッパー
+   * @param userDetailsCache ロード済みのUserDetailsを保持するキャッシュ
+   * @param authMetrics           認証処理のメトリクス
+   * @param unknownUsernameFilter 存在しないユーザー名をデータベースを参照せずに判定するフィルター
    */
-  public AccountUserDetailsService(AccountMapper accountMapper) {
+  public AccountUserDetailsService(
+      AccountMapper accountMapper,
+      UserDetailsCache userDetailsCache,
+      AuthMetrics authMetrics,
+      UnknownUsernameFilter unknownUsernameFilter) {
     this.accountMapper = accountMapper;
+    this.userDetailsCache = userDetailsCache;
+    this.authMetrics = authMetrics;
+    this.unknownUsernameFilter = unknownUsernameFilter;
   }
 
   /**
    * ユーザー名に基づいてアカウント情報をロードし、{@link UserDetails} オブジェクトとして返します。
    * このメソッドは、認証プロセス中にSpring Securityによって呼び出されます。
+   * キャッシュに存在する場合は、データベースを参照せずにキャッシュの内容を返します。
+   * キャッシュにない同じユーザーを同時にロードした場合、データベースの取得は1回のみ行い、その結果を共有します。
    *
    * @param username ログイン時に提供されたユーザー名
    * @return ユーザー名に一致するアカウント情報を含む{@link UserDetails}
@@ -39,19 +59,61 @@ public class AccountUserDetailsService implements UserDetailsService {
    */
   @Override
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    // アカウント情報を取得
-    Account user = accountMapper.findByUsername(username);
+    final long start = System.nanoTime();
+
+    // キャッシュにあればそのまま返す
+    UserDetails cached = userDetailsCache.get(username);
+    if (cached != null) {
+      authMetrics.recordUserLookup(true, System.nanoTime() - start);
+      return cached;
+    }
+
+    // 存在しないことが確実なユーザー名は、データベースを参照せずにスロー
+    if (unknownUsernameFilter.isUnknown(username)) {
+      throw new UsernameNotFoundException("Account not found with username: " + username);
+    }
+
+    // アカウント情報を取得（同じユーザーの取得が実行中であれば、その結果を待って使用する）
+    Account user = accountLoads.execute(username,
+        () -> unknownUsernameFilter.load(username, () -> accountMapper.findByUsername(username)));
+    authMetrics.recordUserLookup(false, System.nanoTime() - start);
 
     // アカウントが見つからない場合はスロー
     if (user == null) {
       throw new UsernameNotFoundException("Account not found with username: " + username);
     }
 
-    // Spring SecurityのUserDetailsを実装したオブジェクトを返す
+    // Spring SecurityのUserDetailsを実装したオブジェクトを作成し、キャッシュに登録
+    // （認証情報の消去が他の呼び出し元に影響しないよう、UserDetailsは呼び出し元ごとに作成する）
+    UserDetails userDetails = createUserDetails(user);
+    userDetailsCache.put(userDetails);
+    return userDetails;
+  }
+
+  /**
+   * 取得済みのアカウントエンティティから{@link UserDetails}を作成します。
+   * すでにアカウントを取得している処理で、同じアカウントを再度ロードせずに済むよう使用します。
+   *
+   * @param account アカウントエンティティ
+   * @return アカウント情報を含むUserDetails
+   */
+  public UserDetails createUserDetails(Account account) {
     return new User(
-        user.getUsername(),
-        user.getPassword(),
+        account.getUsername(),
+        account.getPassword(),
         new ArrayList<>() // 役割（ロール）は後で実装
     );
   }
+
+  /**
+   * ユーザー名に対応するキャッシュ済みのアカウント情報を破棄します。
+   * アカウント情報が変更された場合に、次回のロードでデータベースから取得し直すために呼び出します。
+   * アカウントの登録時にも呼び出されるため、ユーザー名を登録済みとして記録します。
+   *
+   * @param username ユーザー名
+   */
+  public void evictUser(String username) {
+    userDetailsCache.invalidate(username);
+    unknownUsernameFilter.markRegistered(username);
+  }
 }
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.auth.jwt.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.auth.jwt.entity.AuthEvent;
+import com.auth.jwt.mapper.AuthEventMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * auth_eventsテーブルを定期的に読み込み、他のノードで発生した変更をこのノードのキャッシュに反映するサービスです。
+ * 前回読み込んだ通し番号より後のイベントのみを取得するため、1回の読み込みはインデックスの範囲検索で済みます。
+ * 反映の遅れは、読み込み間隔と確定待ちの時間の合計までに収まります。
+ * イベントの反映は何度行っても結果が変わらないため、同じイベントを再度読み込んでも問題ありません。
+ */
+@Service
+@ConditionalOnProperty(name = "auth.events.enabled", havingValue = "true", matchIfMissing = true)
+public class AuthEventPoller {
+
+  @Value("${auth.events.settle-time:500}")
+  private long settleTime;
+
+  @Value("${auth.events.batch-size:500}")
+  private int batchSize;
+
+  @Value("${auth.events.startup-replay:60000}")
+  private long startupReplay;
+
+  @Value("${auth.events.retention:86400000}")
+  private long retention;
+
+  private final AuthEventMapper authEventMapper;
+  private final AccountUserDetailsService accountUserDetailsService;
+  private final TokenRevocationService tokenRevocationService;
+  private final Counter appliedCounter;
+
+  /** 反映済みの最後のイベントの通し番号 */
+  private long lastSeq;
+
+  /**
+   * AuthEventPollerの新しいインスタンスを生成します。
+   *
+   * @param authEventMapper           イベントデータへのアクセスを提供するマッパー
+   * @param accountUserDetailsService アカウント情報のキャッシュを持つサービス
+   * @param tokenRevocationService    無効化したトークンを管理するサービス
+   * @param meterRegistry             メトリクスの登録先
+   */
+  public AuthEventPoller(
+      AuthEventMapper authEventMapper,
+      AccountUserDetailsService accountUserDetailsService,
+      TokenRevocationService tokenRevocationService,
+      MeterRegistry meterRegistry) {
+    this.authEventMapper = authEventMapper;
+    this.accountUserDetailsService = accountUserDetailsService;
+    this.tokenRevocationService = tokenRevocationService;
+    this.appliedCounter = Counter.builder("auth.events.applied")
+        .description("Number of auth events applied to local caches")
+        .register(meterRegistry);
+  }
+
+  /**
+   * 起動時の読み込み開始位置を決定します。
+   * キャッシュは起動時点で空のため過去のイベントは不要ですが、無効化したトークンの読み込みと
+   * 並行して記録されたイベントを取りこぼさないよう、直近のイベントは読み直します。
+   */
+  @PostConstruct
+  void initPosition() {
+    this.lastSeq = authEventMapper.findLastSeqBefore(startupReplay);
+  }
+
+  /**
+   * 前回以降のイベントを読み込み、キャッシュに反映します。
+   * 1回の読み込み件数を上限とし、上限まで取得できた場合は続けて読み込みます。
+   */
+  @Scheduled(fixedDelayString = "${auth.events.poll-interval:1000}")
+  public void poll() {
+    List<AuthEvent> events;
+    do {
+      events = authEventMapper.findAfter(lastSeq, settleTime, batchSize);
+      apply(events);
+    } while (events.size() == batchSize);
+  }
+
+  /**
+   * イベントをまとめてキャッシュに反映します。
+   * 同じユーザーに対する複数の変更は、1回のキャッシュ破棄にまとめます。
+   *
+   * @param events 通し番号の順に並んだイベント
+   */
+  private void apply(List<AuthEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    Set<String> changedUsers = new HashSet<>();
+    for (AuthEvent event : events) {
+      switch (event.getType()) {
+        case USER_CHANGED -> changedUsers.add(event.getSubject());
+        case TOKEN_REVOKED -> tokenRevocationService.markRevoked(event.getSubject(), event.getExpiresAt());
+      }
+    }
+    changedUsers.forEach(accountUserDetailsService::evictUser);
+    lastSeq = events.get(events.size() - 1).getSeq();
+    appliedCounter.increment(events.size());
+  }
+
+  /**
+   * 保持期間を過ぎたイベントを削除します。
+   * どのノードが実行しても結果は同じため、ノード間の排他は行いません。
+   */
+  @Scheduled(initialDelayString = "${auth.events.purge-interval:600000}",
+      fixedDelayString = "${auth.events.purge-interval:600000}")
+  public void purgeOld() {
+    authEventMapper.deleteOlderThan(retention);
+  }
+}
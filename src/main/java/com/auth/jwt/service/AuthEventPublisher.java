@@ -0,0 +1,64 @@
+package com.auth.jwt.service;
+
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.auth.jwt.entity.AuthEvent;
+import com.auth.jwt.mapper.AuthEventMapper;
+
+/**
+ * 他のノードのキャッシュに反映が必要な変更を、auth_eventsテーブルに記録するサービスです。
+ * 記録したイベントは{@link AuthEventPoller}が各ノードで読み込み、キャッシュの破棄などに反映します。
+ * イベントによる反映が無効な場合は、読み込むノードも古いイベントを削除するノードもないため、記録しません。
+ */
+@Service
+public class AuthEventPublisher {
+
+  private final AuthEventMapper authEventMapper;
+  private final boolean enabled;
+
+  /**
+   * AuthEventPublisherの新しいインスタンスを生成します。
+   *
+   * @param authEventMapper イベントデータへのアクセスを提供するマッパー
+   * @param enabled         auth_eventsテーブルによるノード間の反映が有効な場合はtrue
+   */
+  public AuthEventPublisher(
+      AuthEventMapper authEventMapper,
+      @Value("${auth.events.enabled:true}") boolean enabled) {
+    this.authEventMapper = authEventMapper;
+    this.enabled = enabled;
+  }
+
+  /**
+   * アカウントの登録やパスワードの変更を記録します。
+   *
+   * @param username 変更されたアカウントのユーザー名
+   */
+  public void userChanged(String username) {
+    publish(AuthEvent.Type.USER_CHANGED, username, null);
+  }
+
+  /**
+   * アクセストークンの無効化を記録します。
+   *
+   * @param jti       無効化したトークンのID
+   * @param expiresAt トークンの有効期限
+   */
+  public void tokenRevoked(String jti, Instant expiresAt) {
+    publish(AuthEvent.Type.TOKEN_REVOKED, jti, expiresAt);
+  }
+
+  private void publish(AuthEvent.Type type, String subject, Instant expiresAt) {
+    if (!enabled) {
+      return;
+    }
+    AuthEvent authEvent = new AuthEvent();
+    authEvent.setType(type);
+    authEvent.setSubject(subject);
+    authEvent.setExpiresAt(expiresAt);
+    authEventMapper.save(authEvent);
+  }
+}
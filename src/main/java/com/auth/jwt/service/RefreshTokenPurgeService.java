@@ -0,0 +1,135 @@
+package com.auth.jwt.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.auth.jwt.mapper.RefreshTokenMapper;
+import com.auth.jwt.mapper.SchedulerLockMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 有効期限切れのリフレッシュトークンを定期的に削除するサービスです。
+ * 削除は有効期限の古い順に一定件数ずつ行い、1回の実行で削除するバッチ数にも上限を設けます。
+ * 複数のアプリケーションノードで同時に実行されないよう、データベース上のロック（scheduler_lock）を取得したノードのみが削除を行います。
+ */
+@Service
+@ConditionalOnProperty(name = "jwt.refresh-purge.enabled", havingValue = "true", matchIfMissing = true)
+public class RefreshTokenPurgeService {
+
+  private static final Logger log = LoggerFactory.getLogger(RefreshTokenPurgeService.class);
+
+  /** scheduler_lockテーブル上のロック名 */
+  static final String LOCK_NAME = "refresh-token-purge";
+
+  @Value("${jwt.refresh-purge.batch-size:1000}")
+  private int batchSize;
+
+  @Value("${jwt.refresh-purge.max-batches:100}")
+  private int maxBatches;
+
+  @Value("${jwt.refresh-purge.lock-at-most:300000}")
+  private long lockAtMost;
+
+  private final RefreshTokenMapper refreshTokenMapper;
+  private final SchedulerLockMapper schedulerLockMapper;
+  private final String nodeId;
+  private final Counter purgedCounter;
+  private final Counter skippedCounter;
+  private final Timer purgeTimer;
+
+  /**
+   * RefreshTokenPurgeServiceの新しいインスタンスを生成します。
+   *
+   * @param refreshTokenMapper  リフレッシュトークンデータへのアクセスを提供するマッパー
+   * @param schedulerLockMapper ノード間の排他に使用するロックへのアクセスを提供するマッパー
+   * @param meterRegistry       メトリクスの登録先
+   */
+  public RefreshTokenPurgeService(
+      RefreshTokenMapper refreshTokenMapper,
+      SchedulerLockMapper schedulerLockMapper,
+      MeterRegistry meterRegistry) {
+    this.refreshTokenMapper = refreshTokenMapper;
+    this.schedulerLockMapper = schedulerLockMapper;
+    this.nodeId = resolveNodeId();
+    this.purgedCounter = Counter.builder("auth.refresh_token.purged")
+        .description("Number of expired refresh tokens deleted by the purge job")
+        .register(meterRegistry);
+    this.skippedCounter = Counter.builder("auth.refresh_token.purge.skipped")
+        .description("Number of purge runs skipped because another node held the lock")
+        .register(meterRegistry);
+    this.purgeTimer = Timer.builder("auth.refresh_token.purge")
+        .description("Time taken by a refresh token purge run")
+        .register(meterRegistry);
+  }
+
+  /**
+   * 有効期限切れのリフレッシュトークンを削除します。
+   * ロックを取得できなかった場合は、他のノードが実行中とみなして何もしません。
+   */
+  @Scheduled(
+      initialDelayString = "${jwt.refresh-purge.initial-delay:60000}",
+      fixedDelayString = "${jwt.refresh-purge.interval:600000}")
+  public void purgeExpiredTokens() {
+    Instant now = Instant.now();
+    if (schedulerLockMapper.tryLock(LOCK_NAME, nodeId, now, now.plusMillis(lockAtMost)) == 0) {
+      skippedCounter.increment();
+      return;
+    }
+
+    try {
+      long purged = purgeTimer.record(() -> purge(now));
+      if (purged > 0) {
+        log.info("Purged {} expired refresh tokens", purged);
+      }
+    } finally {
+      schedulerLockMapper.unlock(LOCK_NAME, nodeId, Instant.now());
+    }
+  }
+
+  /**
+   * 指定時刻より前に期限切れとなったトークンを、バッチ単位で削除します。
+   *
+   * @param now 期限切れの判定に使用する時刻
+   * @return 削除した件数
+   */
+  private long purge(Instant now) {
+    long total = 0;
+    for (int batch = 0; batch < maxBatches; batch++) {
+      int deleted = refreshTokenMapper.deleteExpired(now, batchSize);
+      total += deleted;
+      purgedCounter.increment(deleted);
+      // バッチサイズに満たなければ、削除対象は残っていない
+      if (deleted < batchSize) {
+        break;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * ロックの保持者として記録する、このノードの識別子を決定します。
+   *
+   * @return ホスト名とランダムな値を組み合わせた識別子
+   */
+  private static String resolveNodeId() {
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      host = "unknown";
+    }
+    return host + "-" + UUID.randomUUID();
+  }
+}
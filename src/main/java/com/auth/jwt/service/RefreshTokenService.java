@@ -1,18 +1,22 @@
 package com.auth.jwt.service;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import com.auth.jwt.entity.Account;
 import com.auth.jwt.entity.RefreshToken;
+import com.auth.jwt.entity.RefreshTokenAccount;
 import com.auth.jwt.mapper.RefreshTokenMapper;
+import com.auth.jwt.metrics.AuthMetrics;
+import com.auth.jwt.metrics.AuthMetrics.RefreshOutcome;
 import com.auth.jwt.model.JwtResponseWithRefreshToken;
 import com.auth.jwt.util.JwtTokenUtil;
+import com.auth.jwt.util.SingleFlight;
+import com.auth.jwt.util.TokenDigests;
 
 /**
  * リフレッシュトークンに関連するビジネスロジックを管理するサービスです。
@@ -24,32 +28,32 @@ public class RefreshTokenService {
   private long refreshExpiration;
 
   private final RefreshTokenMapper refreshTokenMapper;
-  private final AccountService accountService;
-  private final AccountUserDetailsService accountUserDetailsService;
   private final JwtTokenUtil jwtTokenUtil;
+  private final AuthMetrics authMetrics;
+
+  /** 同じリフレッシュトークンによる同時の取得（クライアントの再試行など）を、1回のデータベースの取得にまとめる */
+  private final SingleFlight<String, Optional<RefreshTokenAccount>> refreshTokenLoads = new SingleFlight<>();
 
   /**
    * RefreshTokenServiceの新しいインスタンスを生成します。
    *
-   * @param refreshTokenMapper        リフレッシュトークンデータへのアクセスを提供するマッパー
-   * @param accountService            アカウント関連のサービス
-   * @param accountUserDetailsService ユーザー詳細情報をロードするサービス
-   * @param jwtTokenUtil              JWTを扱うためのユーティリティ
+   * @param refreshTokenMapper リフレッシュトークンデータへのアクセスを提供するマッパー
+   * @param jwtTokenUtil       JWTを扱うためのユーティリティ
+   * @param authMetrics        認証処理のメトリクス
    */
   public RefreshTokenService(
       RefreshTokenMapper refreshTokenMapper,
-      AccountService accountService,
-      AccountUserDetailsService accountUserDetailsService,
-      JwtTokenUtil jwtTokenUtil) {
+      JwtTokenUtil jwtTokenUtil,
+      AuthMetrics authMetrics) {
     this.refreshTokenMapper = refreshTokenMapper;
-    this.accountService = accountService;
-    this.accountUserDetailsService = accountUserDetailsService;
     this.jwtTokenUtil = jwtTokenUtil;
+    this.authMetrics = authMetrics;
   }
 
   /**
    * 新しいリフレッシュトークンを生成し、データベースに保存します。
    * トークン値はUUIDで、有効期限はプロパティ設定に基づき決定されます。
+   * データベースにはトークン値そのものではなく、そのSHA-256ダイジェストを保存します。
    *
    * @param accountId トークンを発行するアカウントのID
    * @return 生成されデータベースに保存されたリフレッシュトークン
@@ -58,6 +62,7 @@ public class RefreshTokenService {
     RefreshToken refreshToken = new RefreshToken();
     refreshToken.setAccountId(accountId);
     refreshToken.setToken(UUID.randomUUID().toString());
+    refreshToken.setTokenHash(TokenDigests.sha256(refreshToken.getToken()));
     refreshToken.setExpiryDate(Instant.now().plusMillis(refreshExpiration));
     refreshTokenMapper.save(refreshToken);
     return refreshToken;
@@ -65,12 +70,13 @@ public class RefreshTokenService {
 
   /**
    * トークン文字列に基づいてリフレッシュトークンをデータベースから検索します。
+   * 検索にはトークン文字列のSHA-256ダイジェストを使用します。
    *
    * @param token 検索するリフレッシュトークン文字列
    * @return リフレッシュトークンが見つかった場合は{@link Optional}にラップされて返されます。見つからない場合は{@link Optional#empty()}。
    */
   public Optional<RefreshToken> findByToken(String token) {
-    return refreshTokenMapper.findByToken(token);
+    return refreshTokenMapper.findByToken(TokenDigests.sha256(token));
   }
 
   /**
@@ -83,12 +89,14 @@ public class RefreshTokenService {
   public void verifyExpiration(RefreshToken token) {
     if (token.getExpiryDate().isBefore(Instant.now())) {
       refreshTokenMapper.deleteByAccountId(token.getAccountId());
-      throw new RuntimeException(token.getToken() + " Refresh token was expired. Please make a new signin request");
+      throw new RuntimeException("Refresh token was expired. Please make a new signin request");
     }
   }
 
   /**
    * リフレッシュトークンを検証し、新しいJWTトークンを生成します。
+   * リフレッシュトークンとアカウント情報は、結合クエリにより1回のデータベースアクセスで取得します。
+   * 同じリフレッシュトークンで同時に呼び出された場合、取得は1回のみ行い、その結果を共有します。
    * 
    * @param requestRefreshToken クライアントから提供されたリフレッシュトークン文字列
    * @return 新しいJWTとリフレッシュトークンを含むレスポンスデータモデル
@@ -96,22 +104,31 @@ public class RefreshTokenService {
    */
   public JwtResponseWithRefreshToken refreshAccessToken(String requestRefreshToken) throws RuntimeException {
 
-    return refreshTokenMapper.findByToken(requestRefreshToken) // findByTokenがOptionalを返す前提
-        .map(refreshToken -> {
-          // 有効期限の検証
-          verifyExpiration(refreshToken);
+    final long start = System.nanoTime();
+
+    // リフレッシュトークンとユーザー名を、トークンのダイジェストで1クエリで取得
+    Optional<RefreshTokenAccount> found = refreshTokenLoads.execute(requestRefreshToken,
+        () -> refreshTokenMapper.findWithAccountByToken(TokenDigests.sha256(requestRefreshToken)));
+    if (found.isEmpty()) {
+      authMetrics.recordRefresh(RefreshOutcome.NOT_FOUND, System.nanoTime() - start);
+      throw new RuntimeException("Refresh token is not in database!");
+    }
+    RefreshTokenAccount refreshToken = found.get();
 
-          // アカウント情報の取得
-          Account account = accountService.findById(refreshToken.getAccountId());
-          UserDetails userDetails = accountUserDetailsService.loadUserByUsername(account.getUsername());
+    // 有効期限の検証
+    try {
+      verifyExpiration(refreshToken);
+    } catch (RuntimeException e) {
+      authMetrics.recordRefresh(RefreshOutcome.EXPIRED, System.nanoTime() - start);
+      throw e;
+    }
 
-          // 新しいJWTトークンを生成
-          String jwtToken = jwtTokenUtil.generateToken(userDetails);
+    // 新しいJWTトークンを生成（役割（ロール）は後で実装）
+    String jwtToken = jwtTokenUtil.generateToken(refreshToken.getUsername(), List.of());
+    authMetrics.recordRefresh(RefreshOutcome.SUCCESS, System.nanoTime() - start);
 
-          // レスポンスモデルを返却
-          return new JwtResponseWithRefreshToken(jwtToken, refreshToken.getToken());
-        })
-        .orElseThrow(() -> new RuntimeException("Refresh token is not in database!"));
+    // レスポンスモデルを返却
+    return new JwtResponseWithRefreshToken(jwtToken, requestRefreshToken);
   }
 
   /**
@@ -121,6 +138,8 @@ public class RefreshTokenService {
    * @param accountId ログアウトするアカウントのID
    */
   public void deleteByAccountId(Long accountId) {
+    final long start = System.nanoTime();
     refreshTokenMapper.deleteByAccountId(accountId);
+    authMetrics.recordLogout(System.nanoTime() - start);
   }
 }
@@ -0,0 +1,165 @@
+package com.auth.jwt.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.auth.jwt.entity.JwtSigningKey;
+import com.auth.jwt.mapper.JwtSigningKeyMapper;
+import com.auth.jwt.util.JwtTokenUtil;
+import com.auth.jwt.util.SigningKey;
+import com.auth.jwt.util.SigningKeyRing;
+import com.auth.jwt.util.SigningKeys;
+
+/**
+ * jwt_signing_keysテーブルから署名鍵を定期的に読み込み、{@link JwtTokenUtil}のキーリングを更新するサービスです。
+ * 再起動せずに署名鍵をローテーションできます。
+ * 鍵はすべてのノードが検証用に読み込んでから署名に使用する必要があるため、登録から署名への使用までに待ち時間を設けています。
+ * activeの鍵でも、登録（created_at）からjwt.keyring.activation-delayが経過するまでは署名に使用せず、
+ * それまでは直前まで署名に使用していた鍵で署名を続けます。これにより、まだ再読み込みしていないノードが
+ * 新しいkidのトークンを拒否することを防ぎます。
+ * 運用では、新しい鍵をactive = FALSEで登録し、再読み込みの間隔以上待ってからactiveを切り替える2段階の手順を推奨します。
+ * 以前の鍵はnot_afterまで検証に使用されるため、発行済みのトークンが一斉に無効になることはありません。
+ * テーブルに鍵が登録されていない場合は、設定ファイルで指定された鍵のみを使用します。
+ */
+@Service
+@ConditionalOnProperty(name = "jwt.keyring.enabled", havingValue = "true", matchIfMissing = true)
+public class SigningKeyRingLoader {
+
+  private static final Logger log = LoggerFactory.getLogger(SigningKeyRingLoader.class);
+
+  private final JwtSigningKeyMapper jwtSigningKeyMapper;
+  private final JwtTokenUtil jwtTokenUtil;
+
+  /** 登録した鍵を署名に使用するまでの待ち時間（ミリ秒） */
+  private final long activationDelay;
+
+  /** 直近に読み込んだ鍵の組み合わせ。変わらない場合はキーリングを作り直しません。 */
+  private String loadedFingerprint = "";
+
+  /**
+   * SigningKeyRingLoaderの新しいインスタンスを生成します。
+   *
+   * @param jwtSigningKeyMapper 署名鍵データへのアクセスを提供するマッパー
+   * @param jwtTokenUtil        キーリングを更新するJWTのユーティリティ
+   * @param activationDelay     登録した鍵を署名に使用するまでの待ち時間（ミリ秒。再読み込みの間隔以上を指定）
+   */
+  public SigningKeyRingLoader(
+      JwtSigningKeyMapper jwtSigningKeyMapper,
+      JwtTokenUtil jwtTokenUtil,
+      @Value("${jwt.keyring.activation-delay:60000}") long activationDelay) {
+    this.jwtSigningKeyMapper = jwtSigningKeyMapper;
+    this.jwtTokenUtil = jwtTokenUtil;
+    this.activationDelay = activationDelay;
+  }
+
+  /**
+   * 署名鍵を読み込み、前回から変わっている場合にのみキーリングを更新します。
+   */
+  @Scheduled(initialDelay = 0, fixedDelayString = "${jwt.keyring.reload-interval:30000}")
+  public synchronized void reload() {
+    final Instant now = Instant.now();
+    final Instant activatedBefore = now.minusMillis(activationDelay);
+    final List<JwtSigningKey> rows = jwtSigningKeyMapper.findUsable(now);
+    final String fingerprint = fingerprint(rows, activatedBefore);
+    if (fingerprint.equals(loadedFingerprint)) {
+      return;
+    }
+
+    // 設定ファイルの鍵は、テーブルに移行する前に発行したトークンのため常に検証に使用する
+    final SigningKey configuredKey = jwtTokenUtil.getConfiguredKey();
+    final String currentKeyId = jwtTokenUtil.getKeyRing().activeKey().keyId();
+    SigningKey activeKey = null;
+    SigningKey currentKey = null;
+    List<SigningKey> keys = new ArrayList<>();
+    for (JwtSigningKey row : rows) {
+      final SigningKey key = toSigningKey(row);
+      if (key == null) {
+        continue;
+      }
+      keys.add(key);
+      if (activeKey == null && isSignable(row, activatedBefore) && key.canSign()) {
+        activeKey = key;
+      }
+      if (key.keyId().equals(currentKeyId) && key.canSign()) {
+        currentKey = key;
+      }
+    }
+
+    // 署名に使用できる鍵がまだない場合は、直前まで署名に使用していた鍵（テーブルにない場合は設定ファイルの鍵）で署名を続ける
+    if (activeKey == null) {
+      activeKey = currentKey != null ? currentKey : configuredKey;
+    }
+    List<SigningKey> verificationKeys = new ArrayList<>();
+    verificationKeys.add(configuredKey);
+    for (SigningKey key : keys) {
+      if (key != activeKey) {
+        verificationKeys.add(key);
+      }
+    }
+
+    jwtTokenUtil.updateKeyRing(SigningKeyRing.of(activeKey, verificationKeys));
+    loadedFingerprint = fingerprint;
+    log.info("Loaded JWT key ring: active={}, keys={}",
+        jwtTokenUtil.getKeyRing().activeKey().keyId(), jwtTokenUtil.getKeyRing().keyIds());
+  }
+
+  /**
+   * 行の鍵を署名に使用できるかを判定します。
+   * activeであっても、登録から待ち時間が経過していない鍵は、まだ読み込んでいないノードがあるため使用しません。
+   *
+   * @param row             jwt_signing_keysテーブルの行
+   * @param activatedBefore この日時以前に登録された鍵のみ署名に使用する
+   * @return 署名に使用できる場合にtrue
+   */
+  private static boolean isSignable(JwtSigningKey row, Instant activatedBefore) {
+    return row.isActive() && row.getCreatedAt() != null && !row.getCreatedAt().isAfter(activatedBefore);
+  }
+
+  /**
+   * テーブルの行から鍵を作成します。
+   * 不正な鍵は読み飛ばし、他の鍵の読み込みは続けます。
+   *
+   * @param row jwt_signing_keysテーブルの行
+   * @return 鍵。作成できない場合は{@code null}
+   */
+  private static SigningKey toSigningKey(JwtSigningKey row) {
+    try {
+      if (SigningKeys.HS256.equals(row.getAlgorithm())) {
+        return SigningKeys.hmac(row.getKid(), row.getSecret());
+      }
+      if (row.getPrivateKey() != null && !row.getPrivateKey().isBlank()) {
+        return SigningKeys.fromPem(row.getKid(), row.getAlgorithm(), row.getPrivateKey(), row.getPublicKey());
+      }
+      return SigningKeys.publicKeyFromPem(row.getKid(), row.getAlgorithm(), row.getPublicKey());
+    } catch (RuntimeException e) {
+      log.warn("Skipped invalid JWT signing key {}: {}", row.getKid(), e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * 鍵の組み合わせを表す文字列を作成します。
+   * 鍵の内容は同じkidのまま変更しない前提のため、kid、アルゴリズム、activeかどうか、署名に使用できるかどうかのみで判定します。
+   * 待ち時間が経過して署名に使用できるようになった時点で、キーリングが作り直されます。
+   *
+   * @param rows            jwt_signing_keysテーブルの行
+   * @param activatedBefore この日時以前に登録された鍵のみ署名に使用する
+   * @return 鍵の組み合わせを表す文字列
+   */
+  private static String fingerprint(List<JwtSigningKey> rows, Instant activatedBefore) {
+    StringBuilder sb = new StringBuilder();
+    for (JwtSigningKey row : rows) {
+      sb.append(row.getKid()).append(':').append(row.getAlgorithm()).append(':').append(row.isActive())
+          .append(':').append(isSignable(row, activatedBefore)).append(',');
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,154 @@
+package com.auth.jwt.service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.auth.jwt.entity.RevokedToken;
+import com.auth.jwt.mapper.RevokedTokenMapper;
+import com.auth.jwt.util.BloomFilter;
+import com.auth.jwt.util.VerifiedToken;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 有効期限前に無効化したアクセストークンを管理するサービスです。
+ * 無効化したトークンのID（jti）はデータベースに保存し、各ノードのメモリにも保持します。
+ * 判定の前段にBloomフィルターを置くことで、大半を占める無効化されていないトークンは数回のハッシュ計算のみで判定します。
+ * 有効期限を過ぎたトークンは署名の検証で拒否されるため、無効化の記録は有効期限まで保持すれば十分です。
+ * 他のノードで無効化したトークンは、{@link AuthEventPoller}がイベントを読み込んで反映します。
+ */
+@Service
+public class TokenRevocationService {
+
+  private final RevokedTokenMapper revokedTokenMapper;
+  private final AuthEventPublisher authEventPublisher;
+  private final long expectedRevocations;
+  private final double falsePositiveRate;
+  private final Counter revokedCounter;
+
+  /** 無効化したトークンのIDと有効期限 */
+  private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+
+  /** 無効化したトークンのIDのBloomフィルター。不要になったIDを除くため、定期的に作り直します。 */
+  private volatile BloomFilter filter;
+
+  /**
+   * TokenRevocationServiceの新しいインスタンスを生成します。
+   *
+   * @param revokedTokenMapper  無効化したトークンのデータへのアクセスを提供するマッパー
+   * @param authEventPublisher  他のノードに無効化を伝えるイベントの記録先
+   * @param meterRegistry       メトリクスの登録先
+   * @param expectedRevocations 同時に保持する無効化の想定件数（Bloomフィルターの大きさの目安）
+   * @param falsePositiveRate   Bloomフィルターの偽陽性率
+   */
+  public TokenRevocationService(
+      RevokedTokenMapper revokedTokenMapper,
+      AuthEventPublisher authEventPublisher,
+      MeterRegistry meterRegistry,
+      @Value("${jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+      @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+    this.revokedTokenMapper = revokedTokenMapper;
+    this.authEventPublisher = authEventPublisher;
+    this.expectedRevocations = expectedRevocations;
+    this.falsePositiveRate = falsePositiveRate;
+    this.filter = BloomFilter.create(expectedRevocations, falsePositiveRate);
+    this.revokedCounter = Counter.builder("auth.token.revoked")
+        .description("Number of access tokens revoked before expiry")
+        .register(meterRegistry);
+    Gauge.builder("auth.token.revocations", revokedTokens, Map::size)
+        .description("Number of unexpired revoked access tokens held in memory")
+        .register(meterRegistry);
+  }
+
+  /**
+   * 起動時に、有効期限内の無効化済みトークンをデータベースから読み込みます。
+   */
+  @PostConstruct
+  synchronized void load() {
+    for (RevokedToken revokedToken : revokedTokenMapper.findUnexpired(Instant.now())) {
+      revokedTokens.put(revokedToken.getJti(), revokedToken.getExpiresAt());
+    }
+    rebuildFilter();
+  }
+
+  /**
+   * アクセストークンを有効期限前に無効化します。
+   * IDを持たないトークン（jtiの付与を始める前に発行したもの）は無効化できないため、何もしません。
+   *
+   * @param verifiedToken 無効化する検証済みトークン
+   */
+  public void revoke(VerifiedToken verifiedToken) {
+    final String jti = verifiedToken.tokenId();
+    if (jti == null) {
+      return;
+    }
+    RevokedToken revokedToken = new RevokedToken();
+    revokedToken.setJti(jti);
+    revokedToken.setExpiresAt(verifiedToken.expiration());
+    revokedTokenMapper.save(revokedToken);
+    markRevoked(jti, verifiedToken.expiration());
+    authEventPublisher.tokenRevoked(jti, verifiedToken.expiration());
+    revokedCounter.increment();
+  }
+
+  /**
+   * 無効化したトークンをメモリ上の一覧とBloomフィルターに追加します。
+   * 他のノードで無効化されたトークンを反映する場合にも使用します。
+   * フィルターの作り直しと同時に実行されると追加が失われるため、作り直しと排他します。
+   *
+   * @param jti       トークンのID
+   * @param expiresAt トークンの有効期限
+   */
+  synchronized void markRevoked(String jti, Instant expiresAt) {
+    revokedTokens.put(jti, expiresAt);
+    filter.put(jti);
+  }
+
+  /**
+   * トークンが無効化されているかを判定します。
+   * Bloomフィルターに含まれない場合は、メモリ上の一覧も参照せずにfalseを返します。
+   *
+   * @param verifiedToken 検証済みトークン
+   * @return 無効化されている場合にtrue
+   */
+  public boolean isRevoked(VerifiedToken verifiedToken) {
+    final String jti = verifiedToken.tokenId();
+    if (jti == null || !filter.mightContain(jti)) {
+      return false;
+    }
+    return revokedTokens.containsKey(jti);
+  }
+
+  /**
+   * 有効期限を過ぎた無効化の記録をメモリとデータベースから削除し、Bloomフィルターを作り直します。
+   */
+  @Scheduled(initialDelayString = "${jwt.revocation.purge-interval:60000}",
+      fixedDelayString = "${jwt.revocation.purge-interval:60000}")
+  public synchronized void purgeExpired() {
+    final Instant now = Instant.now();
+    revokedTokens.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+    rebuildFilter();
+    revokedTokenMapper.deleteExpired(now);
+  }
+
+  /**
+   * 現在の無効化済みトークンからBloomフィルターを作り直します。
+   * 想定件数を超えている場合も偽陽性率を保てるよう、件数に合わせて大きくします。
+   */
+  private void rebuildFilter() {
+    BloomFilter newFilter = BloomFilter.create(
+        Math.max(expectedRevocations, revokedTokens.size() * 2L), falsePositiveRate);
+    for (String jti : revokedTokens.keySet()) {
+      newFilter.put(jti);
+    }
+    this.filter = newFilter;
+  }
+}
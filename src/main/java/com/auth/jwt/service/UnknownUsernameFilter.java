@@ -0,0 +1,172 @@
+package com.auth.jwt.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.auth.jwt.mapper.AccountMapper;
+import com.auth.jwt.util.BloomFilter;
+import com.auth.jwt.util.TokenBucketTable;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * 存在しないユーザー名を、データベースを参照せずに判定するためのクラスです。
+ * 登録済みのユーザー名のBloomフィルターと、存在しなかったユーザー名のサイズ上限付きキャッシュ（ネガティブキャッシュ）の2段で判定します。
+ * Bloomフィルターに含まれないユーザー名は、大量の存在しないユーザー名によるログイン試行をデータベースに到達させないよう、原則としてデータベースを参照せずに拒否します。
+ * Bloomフィルターの偽陽性で通過したユーザー名は、一度データベースで存在しないことを確認した後はネガティブキャッシュで判定します。
+ * 他のノードで登録されたユーザー名はauth_eventsテーブル経由で反映するため、イベントによる反映が無効な場合はBloomフィルターを使用しません。
+ * 反映までの間に登録直後のユーザーを拒否しないよう、Bloomフィルターに含まれないユーザー名も一定の頻度まではデータベースで確認します。
+ */
+@Component
+public class UnknownUsernameFilter {
+
+  private static final Logger log = LoggerFactory.getLogger(UnknownUsernameFilter.class);
+
+  private final AccountMapper accountMapper;
+  private final boolean bloomEnabled;
+  private final boolean cacheEnabled;
+  private final long expectedUsernames;
+  private final double falsePositiveRate;
+  private final Cache<String, Boolean> unknownUsernames;
+
+  /** Bloomフィルターに含まれないユーザー名をデータベースで確認する頻度の上限 */
+  private final TokenBucketTable recheckBudget;
+
+  /** ユーザー名が登録（変更）されるたびに増える世代番号。取得中に登録されたユーザー名をネガティブキャッシュに残さないために使用します。 */
+  private final AtomicLong registrationGeneration = new AtomicLong();
+
+  /** 登録済みのユーザー名のBloomフィルター（起動時の読み込みが完了するまでは{@code null}） */
+  private volatile BloomFilter registeredUsernames;
+
+  /**
+   * UnknownUsernameFilterの新しいインスタンスを生成します。
+   *
+   * @param accountMapper         アカウントデータへのアクセスを提供するマッパー
+   * @param bloomEnabled          登録済みのユーザー名のBloomフィルターを使用する場合はtrue
+   * @param eventsEnabled         auth_eventsテーブルによるノード間の反映が有効な場合はtrue（falseの場合はBloomフィルターを使用しない）
+   * @param cacheEnabled          ネガティブキャッシュを使用する場合はtrue
+   * @param maxSize               ネガティブキャッシュに保持する最大エントリ数
+   * @param ttl                   ネガティブキャッシュのエントリの有効期間（ミリ秒）
+   * @param expectedUsernames     想定する登録済みユーザー数（Bloomフィルターの大きさの目安）
+   * @param falsePositiveRate     Bloomフィルターの偽陽性率
+   * @param recheckCapacity       Bloomフィルターに含まれないユーザー名を連続してデータベースで確認する回数の上限
+   * @param recheckRefillInterval データベースで確認できる回数が1回分補充されるまでの時間（ミリ秒）
+   */
+  public UnknownUsernameFilter(
+      AccountMapper accountMapper,
+      @Value("${auth.unknown-user.bloom-enabled:true}") boolean bloomEnabled,
+      @Value("${auth.events.enabled:true}") boolean eventsEnabled,
+      @Value("${auth.unknown-user.cache-enabled:true}") boolean cacheEnabled,
+      @Value("${auth.unknown-user.max-size:100000}") long maxSize,
+      @Value("${auth.unknown-user.ttl:60000}") long ttl,
+      @Value("${auth.unknown-user.expected-usernames:1000000}") long expectedUsernames,
+      @Value("${auth.unknown-user.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${auth.unknown-user.recheck-capacity:20}") int recheckCapacity,
+      @Value("${auth.unknown-user.recheck-refill-interval:50}") long recheckRefillInterval) {
+    if (bloomEnabled && !eventsEnabled) {
+      log.warn("auth.unknown-user.bloom-enabled is ignored because auth.events.enabled is false; "
+          + "usernames registered on other nodes would never reach this node's Bloom filter.");
+    }
+    this.accountMapper = accountMapper;
+    this.bloomEnabled = bloomEnabled && eventsEnabled;
+    this.cacheEnabled = cacheEnabled;
+    this.expectedUsernames = expectedUsernames;
+    this.falsePositiveRate = falsePositiveRate;
+    this.unknownUsernames = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofMillis(ttl))
+        .build();
+    this.recheckBudget = new TokenBucketTable(1, recheckCapacity, recheckRefillInterval);
+  }
+
+  /**
+   * 起動時に、登録済みのすべてのユーザー名からBloomフィルターを構築します。
+   * ユーザー名は1件ずつ読み込み、一覧としてメモリに保持しません。
+   */
+  @PostConstruct
+  void loadRegisteredUsernames() {
+    if (!bloomEnabled) {
+      return;
+    }
+    final long count = accountMapper.countAll();
+    final BloomFilter filter = BloomFilter.create(Math.max(expectedUsernames, count * 2), falsePositiveRate);
+    accountMapper.scanUsernames(context -> filter.put(context.getResultObject()));
+    this.registeredUsernames = filter;
+    log.info("Loaded {} registered usernames into the Bloom filter", count);
+  }
+
+  /**
+   * ユーザー名が存在しないことが、データベースを参照せずに判定できるかを返します。
+   * Bloomフィルターに含まれないユーザー名でも、他のノードで登録された直後でまだ反映されていない可能性があるため、
+   * データベースで確認できる回数の上限に達していない間はfalseを返します。
+   *
+   * @param username ユーザー名
+   * @return 存在しないことが確実な場合にtrue。falseの場合はデータベースで確認が必要です。
+   */
+  public boolean isUnknown(String username) {
+    if (cacheEnabled && unknownUsernames.getIfPresent(username) != null) {
+      return true;
+    }
+    final BloomFilter filter = registeredUsernames;
+    return filter != null && !filter.mightContain(username) && recheckBudget.tryAcquire(username) > 0;
+  }
+
+  /**
+   * ユーザー名でアカウントを取得し、見つからなかった場合はネガティブキャッシュに記録します。
+   * 取得中にユーザー名が登録された場合は、取得結果が古い可能性があるため記録しません。
+   *
+   * @param <T>      取得する値の型
+   * @param username ユーザー名
+   * @param loader   データベースから取得する処理（見つからない場合は{@code null}を返す）
+   * @return 取得した値
+   */
+  public <T> T load(String username, Supplier<T> loader) {
+    final long generation = registrationGeneration.get();
+    final T value = loader.get();
+    if (value == null) {
+      markUnknown(username, generation);
+    }
+    return value;
+  }
+
+  /**
+   * データベースで存在しないことを確認したユーザー名を記録します。
+   * 記録した後に世代番号が変わっていた場合は、取得と並行して登録された可能性があるため記録を取り消します。
+   * （登録側は世代番号を進めてからエントリを破棄するため、どちらが先に実行されても古いエントリは残りません）
+   *
+   * @param username   ユーザー名
+   * @param generation 取得を開始した時点の世代番号
+   */
+  private void markUnknown(String username, long generation) {
+    if (!cacheEnabled) {
+      return;
+    }
+    unknownUsernames.put(username, Boolean.TRUE);
+    if (registrationGeneration.get() != generation) {
+      unknownUsernames.invalidate(username);
+    }
+  }
+
+  /**
+   * 登録された（または変更された）ユーザー名を記録します。
+   * 以降、このユーザー名は存在しないと判定されなくなります。
+   *
+   * @param username ユーザー名
+   */
+  public void markRegistered(String username) {
+    final BloomFilter filter = registeredUsernames;
+    if (filter != null) {
+      filter.put(username);
+    }
+    registrationGeneration.incrementAndGet();
+    unknownUsernames.invalidate(username);
+  }
+}
@@ -0,0 +1,77 @@
+package com.auth.jwt.service;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * ユーザー名をキーに{@link UserDetails}を保持する、サイズ上限と有効期間付きのキャッシュです。
+ * データベースを参照する認証モードで、リクエストやログインのたびに同じアカウントを取得し直すのを避けるために使用します。
+ */
+@Component
+public class UserDetailsCache {
+
+  private final boolean enabled;
+  private final Cache<String, UserDetails> cache;
+
+  /**
+   * UserDetailsCacheの新しいインスタンスを生成します。
+   *
+   * @param enabled キャッシュを有効にする場合はtrue
+   * @param maxSize キャッシュに保持する最大エントリ数
+   * @param ttl     エントリの有効期間（ミリ秒）
+   */
+  public UserDetailsCache(
+      @Value("${auth.user-cache.enabled:true}") boolean enabled,
+      @Value("${auth.user-cache.max-size:10000}") long maxSize,
+      @Value("${auth.user-cache.ttl:300000}") long ttl) {
+    this.enabled = enabled;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(Duration.ofMillis(ttl))
+        .build();
+  }
+
+  /**
+   * ユーザー名に対応するUserDetailsをキャッシュから取得します。
+   * 認証後に{@link org.springframework.security.authentication.ProviderManager}がパスワードを消去するため、
+   * キャッシュ内のオブジェクトそのものではなく複製を返します。
+   *
+   * @param username ユーザー名
+   * @return キャッシュされたUserDetailsの複製。キャッシュが無効または未登録の場合は{@code null}
+   */
+  public UserDetails get(String username) {
+    if (!enabled) {
+      return null;
+    }
+    UserDetails cached = cache.getIfPresent(username);
+    return cached != null ? User.withUserDetails(cached).build() : null;
+  }
+
+  /**
+   * UserDetailsをキャッシュに登録します。
+   *
+   * @param userDetails 登録するUserDetails
+   */
+  public void put(UserDetails userDetails) {
+    if (enabled) {
+      cache.put(userDetails.getUsername(), User.withUserDetails(userDetails).build());
+    }
+  }
+
+  /**
+   * ユーザー名に対応するエントリを破棄します。
+   * パスワード変更やアカウント登録など、アカウント情報が変わったときに呼び出します。
+   *
+   * @param username ユーザー名
+   */
+  public void invalidate(String username) {
+    cache.invalidate(username);
+  }
+}
@@ -0,0 +1,79 @@
+package com.auth.jwt.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 文字列の集合に対するスレッドセーフなBloomフィルターです。
+ * 含まれていない値は数回のハッシュ計算とビットの参照のみで判定できます。
+ * 偽陽性（含まれていない値をtrueと判定すること）はあり得ますが、偽陰性はありません。
+ * 値の削除はできないため、不要になった値を除く場合は新しいフィルターを作り直してください。
+ */
+public final class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long bitSize;
+  private final int numHashes;
+
+  private BloomFilter(long bitSize, int numHashes) {
+    this.bits = new AtomicLongArray((int) ((bitSize + 63) / 64));
+    this.bitSize = bitSize;
+    this.numHashes = numHashes;
+  }
+
+  /**
+   * 想定する要素数と偽陽性率から、最適なビット数とハッシュ関数の数を求めてフィルターを作成します。
+   *
+   * @param expectedInsertions 想定する要素数
+   * @param falsePositiveRate  許容する偽陽性率（0より大きく1未満）
+   * @return 空のBloomフィルター
+   */
+  public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+    final long n = Math.max(1, expectedInsertions);
+    final long bitSize = Math.max(64, (long) (-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+    final int numHashes = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+    return new BloomFilter(bitSize, numHashes);
+  }
+
+  /**
+   * 値を追加します。
+   *
+   * @param value 追加する値
+   */
+  public void put(String value) {
+    final long hash = StringHashes.hash64(value);
+    final int h1 = (int) hash;
+    final int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= numHashes; i++) {
+      final long index = index(h1 + i * h2);
+      final long mask = 1L << index;
+      final int word = (int) (index >>> 6);
+      long current;
+      while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+        // 他のスレッドが同じワードを更新した場合は再試行する
+      }
+    }
+  }
+
+  /**
+   * 値が含まれている可能性があるかを判定します。
+   *
+   * @param value 判定する値
+   * @return 含まれている可能性がある場合にtrue。falseの場合は確実に含まれていません。
+   */
+  public boolean mightContain(String value) {
+    final long hash = StringHashes.hash64(value);
+    final int h1 = (int) hash;
+    final int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= numHashes; i++) {
+      final long index = index(h1 + i * h2);
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long index(int combinedHash) {
+    return (combinedHash & Integer.MAX_VALUE) % bitSize;
+  }
+}
@@ -0,0 +1,163 @@
+package com.auth.jwt.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * キーごとの発生回数を、一定時間の移動窓で近似的に数えるcount-min sketchです。
+ * 使用するメモリはキーの種類数によらず固定のため、大量のキーが送られてきても際限なく増えることはありません。
+ * 推定値は実際の回数以上になることはあっても、下回ることはありません。
+ * <p>
+ * 現在の窓と直前の窓の2つのカウンターを持ち、直前の窓の回数を現在の窓の経過割合に応じて減衰させて加算します。
+ * 窓が切り替わると直前の窓のカウンターは破棄されるため、古い回数は自然に消えます。
+ * カウンターの加算はロックを使用せず、各セルへのアトミックな更新で行います。
+ * 加算時は推定値（各行の最小値）と等しいセルのみを増やすため、大量のキーによる衝突があっても推定値の誤差は小さく抑えられます。
+ * 最小値だったセルを他のスレッドが先に更新した場合は最小値を読み直して加算し直すため、同時に加算しても回数が失われることはありません
+ * （加算し直した分だけ多く数えることはあります）。
+ */
+public final class DecayingCountMinSketch {
+
+  private final int depth;
+  private final int width;
+  private final long windowMillis;
+  private final LongSupplier clock;
+  private final AtomicReference<Windows> windows;
+
+  /**
+   * DecayingCountMinSketchの新しいインスタンスを生成します。
+   *
+   * @param depth        ハッシュ関数の数（行数）
+   * @param width        1行あたりのカウンター数
+   * @param windowMillis 窓の長さ（ミリ秒）
+   */
+  public DecayingCountMinSketch(int depth, int width, long windowMillis) {
+    this(depth, width, windowMillis, System::currentTimeMillis);
+  }
+
+  /**
+   * 現在時刻の取得方法を指定して、DecayingCountMinSketchの新しいインスタンスを生成します（テスト用）。
+   *
+   * @param depth        ハッシュ関数の数（行数）
+   * @param width        1行あたりのカウンター数
+   * @param windowMillis 窓の長さ（ミリ秒）
+   * @param clock        現在時刻（ミリ秒）を返す関数
+   */
+  DecayingCountMinSketch(int depth, int width, long windowMillis, LongSupplier clock) {
+    this.depth = depth;
+    this.width = width;
+    this.windowMillis = windowMillis;
+    this.clock = clock;
+    this.windows = new AtomicReference<>(new Windows(
+        clock.getAsLong() / windowMillis, newCounters(), newCounters()));
+  }
+
+  /**
+   * キーの回数を1加算します。
+   *
+   * @param key キー
+   */
+  public void increment(String key) {
+    final AtomicLongArray counters = windowsAt(clock.getAsLong()).current();
+    final long hash = StringHashes.hash64(key);
+    while (!tryIncrement(counters, hash)) {
+      // 他のスレッドが同じセルを先に更新した場合は、最小値を読み直して再試行する
+    }
+  }
+
+  /**
+   * 推定値（各行の最小値）と等しいセルのみを1加算します（conservative update）。
+   * 他のキーとの衝突による過大な推定を抑えます。
+   * 最小値の判定は読み込んだ時点の値で行い、最小値だったセルはすべてCASで加算します。
+   * 読み込んだ後に他のスレッドが更新したセルを加算せずに済ませると、その回数が失われるためです。
+   *
+   * @param counters 加算するカウンター
+   * @param hash     キーのハッシュ値
+   * @return 加算できた場合はtrue。最小値だったセルが他のスレッドに更新されていた場合はfalse
+   */
+  private boolean tryIncrement(AtomicLongArray counters, long hash) {
+    final long[] values = new long[depth];
+    long min = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      values[row] = counters.get(cell(hash, row));
+      min = Math.min(min, values[row]);
+    }
+    for (int row = 0; row < depth; row++) {
+      if (values[row] == min && !counters.compareAndSet(cell(hash, row), min, min + 1)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 直近の窓の長さの間のキーの回数を推定します。
+   *
+   * @param key キー
+   * @return 推定した回数
+   */
+  public long estimate(String key) {
+    final long now = clock.getAsLong();
+    final Windows current = windowsAt(now);
+    final long hash = StringHashes.hash64(key);
+    long currentCount = Long.MAX_VALUE;
+    long previousCount = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      final int cell = cell(hash, row);
+      currentCount = Math.min(currentCount, current.current().get(cell));
+      previousCount = Math.min(previousCount, current.previous().get(cell));
+    }
+    // 直前の窓のうち、移動窓に含まれる割合だけ加算する
+    final double previousWeight = 1.0 - (double) (now % windowMillis) / windowMillis;
+    return currentCount + (long) Math.ceil(previousCount * previousWeight);
+  }
+
+  /**
+   * @return 窓の長さ（ミリ秒）
+   */
+  public long windowMillis() {
+    return windowMillis;
+  }
+
+  /**
+   * 指定した時刻の窓を取得します。窓が切り替わっている場合は、カウンターを入れ替えます。
+   * 複数のスレッドが同時に切り替えた場合は、1つのスレッドの切り替えのみが反映されます。
+   *
+   * @param now 現在時刻（ミリ秒）
+   * @return 現在の窓
+   */
+  private Windows windowsAt(long now) {
+    final long index = now / windowMillis;
+    while (true) {
+      final Windows current = windows.get();
+      if (current.index() >= index) {
+        return current;
+      }
+      final AtomicLongArray previous = current.index() == index - 1 ? current.current() : newCounters();
+      final Windows next = new Windows(index, newCounters(), previous);
+      if (windows.compareAndSet(current, next)) {
+        return next;
+      }
+    }
+  }
+
+  private int cell(long hash, int row) {
+    final int h1 = (int) hash;
+    final int h2 = (int) (hash >>> 32);
+    return row * width + ((h1 + (row + 1) * h2) & Integer.MAX_VALUE) % width;
+  }
+
+  private AtomicLongArray newCounters() {
+    return new AtomicLongArray(depth * width);
+  }
+
+  /**
+   * 窓の番号と、現在の窓・直前の窓のカウンターの組み合わせです。
+   *
+   * @param index    窓の番号（時刻を窓の長さで割った値）
+   * @param current  現在の窓のカウンター
+   * @param previous 直前の窓のカウンター
+   */
+  private record Windows(long index, AtomicLongArray current, AtomicLongArray previous) {
+  }
+}
@@ -1,32 +1,168 @@
 package com.auth.jwt.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import com.auth.jwt.metrics.AuthMetrics;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
-import javax.crypto.SecretKey;
-
 /**
  * JWT（JSON Web Token）を扱うためのユーティリティクラス。
  * トークンの生成、解析、検証といった一連の処理を提供します。
+ * 署名方式はHMAC（HS256）のほか、公開鍵暗号（ES256、EdDSA）に対応しており、
+ * 公開鍵暗号の場合は公開鍵をJWKSとして公開することで、他のサービスがトークンを自身で検証できます。
+ * 鍵は{@link SigningKeyRing}として保持し、署名には1つの鍵を、検証にはトークンのkidに対応する鍵を使用するため、
+ * 署名鍵をローテーションしても発行済みのトークンは有効期限まで検証できます。
  */
 @Component
 public class JwtTokenUtil {
+  private static final Logger log = LoggerFactory.getLogger(JwtTokenUtil.class);
+
+  /** 権限（ロール）の一覧を格納するクレーム名 */
+  public static final String AUTHORITIES_CLAIM = "authorities";
+
   @Value("${jwt.secret}")
   private String secret;
 
   @Value("${jwt.expiration}")
   private long expiration;
 
+  /** 署名アルゴリズム（HS256、ES256、EdDSA） */
+  @Value("${jwt.signing.algorithm:HS256}")
+  private String signingAlgorithm;
+
+  /** PEM形式の秘密鍵の場所（ES256、EdDSAの場合に使用） */
+  @Value("${jwt.signing.private-key:}")
+  private String privateKeyLocation;
+
+  /** PEM形式の公開鍵の場所（ES256、EdDSAの場合に使用） */
+  @Value("${jwt.signing.public-key:}")
+  private String publicKeyLocation;
+
+  /** 設定ファイルで指定された鍵（キーリングのデータベースに鍵が登録されていない場合に使用） */
+  private SigningKey configuredKey;
+
+  /** 署名・検証に使用する鍵の一覧。鍵を差し替える場合は参照ごと置き換えます。 */
+  private volatile SigningKeyRing keyRing;
+
+  /** 検証のたびにkidに対応する鍵をキーリングから取得する、スレッドセーフなパーサー */
+  private final JwtParser parser;
+
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final AuthMetrics authMetrics;
+
+  /**
+   * JwtTokenUtilの新しいインスタンスを生成します。
+   *
+   * @param verifiedTokenCache 検証済みトークンのキャッシュ
+   * @param authMetrics        認証処理のメトリクス
+   */
+  public JwtTokenUtil(VerifiedTokenCache verifiedTokenCache, AuthMetrics authMetrics) {
+    this.verifiedTokenCache = verifiedTokenCache;
+    this.authMetrics = authMetrics;
+    this.parser = Jwts.parser().keyLocator(new KeyRingLocator()).build();
+  }
+
+  /**
+   * 起動時に設定ファイルの鍵からキーリングを構築します。
+   */
+  @PostConstruct
+  void initKeyMaterial() {
+    this.configuredKey = createSigningKey();
+    this.keyRing = SigningKeyRing.of(configuredKey, List.of());
+  }
+
+  /**
+   * 設定された署名アルゴリズムに従って署名鍵を作成します。
+   * 公開鍵暗号で鍵の場所が設定されていない場合は鍵ペアを生成しますが、
+   * 再起動や複数ノードの間で鍵が一致しないため、開発用途に限ります。
+   *
+   * @return 署名鍵
+   */
+  private SigningKey createSigningKey() {
+    if (SigningKeys.HS256.equalsIgnoreCase(signingAlgorithm)) {
+      return SigningKeys.hmac(secret);
+    }
+    if (privateKeyLocation.isEmpty() || publicKeyLocation.isEmpty()) {
+      log.warn("jwt.signing.private-key/public-key are not set. Generated an ephemeral {} key pair; "
+          + "issued tokens will not verify after a restart or on other nodes.", signingAlgorithm);
+      return SigningKeys.generate(signingAlgorithm);
+    }
+    return SigningKeys.fromPem(signingAlgorithm, readPem(privateKeyLocation), readPem(publicKeyLocation));
+  }
+
+  /**
+   * PEM形式の鍵を読み込みます。
+   *
+   * @param location 鍵の場所（"classpath:"、"file:"などのプレフィックスを指定可能）
+   * @return PEM形式の文字列
+   */
+  private static String readPem(String location) {
+    Resource resource = new DefaultResourceLoader().getResource(location);
+    try {
+      return resource.getContentAsString(StandardCharsets.US_ASCII);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read key from " + location, e);
+    }
+  }
+
+  /**
+   * キーリングを差し替えます。
+   * 検証に使用しなくなった鍵がある場合、その鍵で検証した結果は信頼できないため、検証済みトークンのキャッシュを破棄します。
+   *
+   * @param newKeyRing 新しいキーリング
+   */
+  public synchronized void updateKeyRing(SigningKeyRing newKeyRing) {
+    final SigningKeyRing oldKeyRing = this.keyRing;
+    this.keyRing = newKeyRing;
+    if (!newKeyRing.keyIds().containsAll(oldKeyRing.keyIds())) {
+      this.verifiedTokenCache.invalidateAll();
+    }
+  }
+
+  /**
+   * @return 現在のキーリング
+   */
+  public SigningKeyRing getKeyRing() {
+    return keyRing;
+  }
+
+  /**
+   * @return 設定ファイルで指定された鍵
+   */
+  public SigningKey getConfiguredKey() {
+    return configuredKey;
+  }
+
   /**
    * トークンからユーザー名（サブジェクト）を取得します。
    *
@@ -67,14 +203,37 @@ public class JwtTokenUtil {
    * @return すべてのクレームを含むClaimsオブジェクト
    */
   private Claims getAllClaimsFromToken(String token) {
-    return Jwts
-        .parser()
-        .verifyWith(getSigningKey())
-        .build()
+    return parser
         .parseSignedClaims(token)
         .getPayload();
   }
 
+  /**
+   * トークンの署名と有効期限を一度だけ検証・解析し、その結果を{@link VerifiedToken}として返します。
+   * 同じリクエスト内でユーザー名や有効期限を参照する場合は、このメソッドの戻り値を使い回してください。
+   * 検証済みトークンのキャッシュにヒットした場合は、署名検証と解析を省略します。
+   *
+   * @param token JWTトークン
+   * @return 検証済みトークン
+   * @throws io.jsonwebtoken.JwtException トークンが不正、署名が一致しない、または有効期限切れの場合
+   */
+  public VerifiedToken parseToken(String token) {
+    final VerifiedToken cached = verifiedTokenCache.get(token);
+    if (cached != null) {
+      return cached;
+    }
+
+    final Claims claims = getAllClaimsFromToken(token);
+    final Date issuedAt = claims.getIssuedAt();
+    final VerifiedToken verifiedToken = new VerifiedToken(
+        claims.getSubject(),
+        claims.getExpiration().toInstant(),
+        issuedAt != null ? issuedAt.toInstant() : null,
+        claims);
+    verifiedTokenCache.put(token, verifiedToken);
+    return verifiedToken;
+  }
+
   /**
    * トークンが有効期限切れかどうかをチェックします。
    *
@@ -88,29 +247,70 @@ public class JwtTokenUtil {
 
   /**
    * ユーザー情報に基づいてJWTトークンを生成します。
+   * ステートレス認証でデータベースを参照せずに済むよう、ユーザーの権限をクレームとして埋め込みます。
    *
    * @param userDetails 認証済みのUserDetails（Spring Securityの認証で使用する情報）オブジェクト
    * @return 生成されたJWTトークン
    */
   public String generateToken(UserDetails userDetails) {
+    return generateToken(userDetails.getUsername(), userDetails.getAuthorities());
+  }
+
+  /**
+   * ユーザー名と権限に基づいてJWTトークンを生成します。
+   * UserDetailsを組み立てずに、取得済みの情報から直接トークンを発行する場合に使用します。
+   *
+   * @param username    トークンのサブジェクトとなるユーザー名
+   * @param authorities トークンに埋め込む権限
+   * @return 生成されたJWTトークン
+   */
+  public String generateToken(String username, Collection<? extends GrantedAuthority> authorities) {
     Map<String, Object> claims = new HashMap<>();
-    return doGenerateToken(claims, userDetails.getUsername());
+    claims.put(AUTHORITIES_CLAIM, authorities.stream()
+        .map(GrantedAuthority::getAuthority)
+        .toList());
+    final long start = System.nanoTime();
+    final String token = doGenerateToken(claims, username);
+    authMetrics.recordTokenIssue(System.nanoTime() - start);
+    return token;
+  }
+
+  /**
+   * 検証済みトークンのクレームのみから{@link UserDetails}を組み立てます。
+   * ステートレス認証モードで、アカウント情報をデータベースから取得する代わりに使用します。
+   *
+   * @param verifiedToken 検証済みトークン
+   * @return サブジェクトと権限クレームを持つUserDetails（パスワードは空）
+   */
+  public UserDetails createUserDetails(VerifiedToken verifiedToken) {
+    List<GrantedAuthority> authorities = new ArrayList<>();
+    List<?> authorityNames = verifiedToken.getClaim(AUTHORITIES_CLAIM, List.class);
+    if (authorityNames != null) {
+      for (Object authorityName : authorityNames) {
+        authorities.add(new SimpleGrantedAuthority(String.valueOf(authorityName)));
+      }
+    }
+    return new User(verifiedToken.subject(), "", authorities);
   }
 
   /**
    * クレームとサブジェクトに基づいて、実際にJWTを生成します。
+   * 有効期限前に個別に無効化できるよう、トークンごとに一意のID（jti）を付与します。
    *
    * @param claims  ペイロード（認証情報やその他のデータ）に含めるクレーム
    * @param subject トークンのサブジェクト（通常はユーザー名）
    * @return 生成されたJWTトークン
    */
   private String doGenerateToken(Map<String, Object> claims, String subject) {
+    final SigningKey signingKey = keyRing.activeKey();
     return Jwts.builder()
+        .header().keyId(signingKey.keyId()).and()
         .setClaims(claims)
         .setSubject(subject)
+        .setId(UUID.randomUUID().toString())
         .setIssuedAt(new Date(System.currentTimeMillis()))
         .setExpiration(new Date(System.currentTimeMillis() + expiration))
-        .signWith(getSigningKey())
+        .signWith(signingKey.signingKey())
         .compact();
   }
 
@@ -127,12 +327,42 @@ public class JwtTokenUtil {
   }
 
   /**
-   * 署名に使用するSecretKeyを取得します。
+   * 検証済みトークンがユーザー情報と一致し、有効期限内であるかを検証します。
+   * トークンの再解析は行いません。
+   *
+   * @param verifiedToken {@link #parseToken(String)}で取得した検証済みトークン
+   * @param userDetails   認証済みのUserDetailsオブジェクト
+   * @return トークンが有効な場合にtrue、そうでなければfalse
+   */
+  public Boolean validateToken(VerifiedToken verifiedToken, UserDetails userDetails) {
+    return (verifiedToken.subject().equals(userDetails.getUsername()) && !verifiedToken.isExpiredAt(Instant.now()));
+  }
+
+  /**
+   * 外部に公開できる検証用の鍵を取得します。
+   * 鍵が差し替えられるまでは同じリストのインスタンスを返すため、呼び出し側は参照の比較で変更を検知できます。
    *
-   * @return 署名用のSecretKey
+   * @return 公開鍵の一覧（HMACで署名している場合は空）
    */
-  private SecretKey getSigningKey() {
-    byte[] keyBytes = Decoders.BASE64.decode(this.secret);
-    return Keys.hmacShaKeyFor(keyBytes);
+  public List<SigningKey> getPublishedKeys() {
+    return keyRing.publishedKeys();
+  }
+
+  /**
+   * トークンのヘッダー（kid）に対応する検証用の鍵を、その時点のキーリングから取得します。
+   * kidを持たないトークン（kidの付与を始める前に発行したもの）は、署名に使用している鍵で検証します。
+   */
+  private class KeyRingLocator extends LocatorAdapter<Key> {
+
+    @Override
+    protected Key locate(JwsHeader header) {
+      final SigningKeyRing ring = keyRing;
+      final String keyId = header.getKeyId();
+      final SigningKey key = keyId != null ? ring.verificationKey(keyId) : ring.activeKey();
+      if (key == null) {
+        throw new SignatureException("Unknown signing key: " + keyId);
+      }
+      return key.verificationKey();
+    }
   }
 }
@@ -0,0 +1,38 @@
+package com.auth.jwt.util;
+
+import java.security.Key;
+import java.security.PublicKey;
+
+/**
+ * JWTの署名・検証に使用する鍵を表す不変オブジェクトです。
+ * HMAC（共有鍵）の場合は署名と検証に同じ鍵を使用し、ES256/EdDSA（公開鍵暗号）の場合は
+ * 秘密鍵で署名し、公開鍵で検証します。
+ *
+ * @param keyId           トークンのヘッダー（kid）に設定する鍵の識別子
+ * @param algorithm       署名アルゴリズム（HS256、ES256、EdDSA）
+ * @param signingKey      署名に使用する鍵（検証専用の鍵の場合は{@code null}）
+ * @param verificationKey 検証に使用する鍵
+ */
+public record SigningKey(String keyId, String algorithm, Key signingKey, Key verificationKey) {
+
+  /**
+   * @return 公開鍵暗号の鍵で、公開鍵を外部に公開できる場合にtrue
+   */
+  public boolean isAsymmetric() {
+    return verificationKey instanceof PublicKey;
+  }
+
+  /**
+   * @return 外部に公開する公開鍵（HMACの場合は{@code null}）
+   */
+  public PublicKey publicKey() {
+    return verificationKey instanceof PublicKey publicKey ? publicKey : null;
+  }
+
+  /**
+   * @return 署名に使用できる鍵を持つ場合にtrue
+   */
+  public boolean canSign() {
+    return signingKey != null;
+  }
+}
@@ -0,0 +1,84 @@
+package com.auth.jwt.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 署名に使用する1つの鍵と、検証に使用する複数の鍵をまとめた不変オブジェクトです。
+ * 検証に使用する鍵はトークンのヘッダー（kid）から定数時間で取得できます。
+ * 鍵を差し替える場合は新しいインスタンスを作成し、参照ごと置き換えます。
+ */
+public final class SigningKeyRing {
+
+  private final SigningKey activeKey;
+  private final Map<String, SigningKey> verificationKeys;
+  private final List<SigningKey> publishedKeys;
+
+  private SigningKeyRing(SigningKey activeKey, Map<String, SigningKey> verificationKeys) {
+    this.activeKey = activeKey;
+    this.verificationKeys = verificationKeys;
+    List<SigningKey> published = new ArrayList<>();
+    for (SigningKey key : verificationKeys.values()) {
+      if (key.isAsymmetric()) {
+        published.add(key);
+      }
+    }
+    this.publishedKeys = List.copyOf(published);
+  }
+
+  /**
+   * 署名に使用する鍵と、検証のみに使用する鍵からキーリングを作成します。
+   * 署名に使用する鍵は検証にも使用します。識別子が重複する場合は署名に使用する鍵を優先します。
+   *
+   * @param activeKey        署名に使用する鍵
+   * @param verificationOnly 検証のみに使用する鍵
+   * @return キーリング
+   * @throws IllegalArgumentException 署名に使用する鍵が署名に使用できない場合
+   */
+  public static SigningKeyRing of(SigningKey activeKey, Collection<SigningKey> verificationOnly) {
+    if (!activeKey.canSign()) {
+      throw new IllegalArgumentException("Active key " + activeKey.keyId() + " has no signing key");
+    }
+    Map<String, SigningKey> verificationKeys = new HashMap<>();
+    for (SigningKey key : verificationOnly) {
+      verificationKeys.put(key.keyId(), key);
+    }
+    verificationKeys.put(activeKey.keyId(), activeKey);
+    return new SigningKeyRing(activeKey, Map.copyOf(verificationKeys));
+  }
+
+  /**
+   * @return 署名に使用する鍵
+   */
+  public SigningKey activeKey() {
+    return activeKey;
+  }
+
+  /**
+   * 識別子（kid）に対応する検証用の鍵を取得します。
+   *
+   * @param keyId 鍵の識別子
+   * @return 検証用の鍵。存在しない場合は{@code null}
+   */
+  public SigningKey verificationKey(String keyId) {
+    return keyId != null ? verificationKeys.get(keyId) : null;
+  }
+
+  /**
+   * @return 検証に使用するすべての鍵の識別子
+   */
+  public Set<String> keyIds() {
+    return verificationKeys.keySet();
+  }
+
+  /**
+   * @return JWKSとして公開する公開鍵の一覧（HMACの鍵は含みません）
+   */
+  public List<SigningKey> publishedKeys() {
+    return publishedKeys;
+  }
+}
@@ -0,0 +1,174 @@
+package com.auth.jwt.util;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.SecretKey;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * {@link SigningKey}を作成するためのユーティリティクラスです。
+ * Base64エンコードされたHMACシークレットや、PEM形式の鍵ペアの読み込み、鍵ペアの生成を行います。
+ */
+public final class SigningKeys {
+
+  /** HMAC-SHA256による署名 */
+  public static final String HS256 = "HS256";
+  /** ECDSA（P-256）による署名 */
+  public static final String ES256 = "ES256";
+  /** Ed25519による署名 */
+  public static final String EDDSA = "EdDSA";
+
+  private SigningKeys() {
+  }
+
+  /**
+   * Base64エンコードされたシークレットからHMACの鍵を作成します。
+   *
+   * @param base64Secret Base64エンコードされたシークレット
+   * @return HMACの鍵
+   */
+  public static SigningKey hmac(String base64Secret) {
+    return hmac(null, base64Secret);
+  }
+
+  /**
+   * Base64エンコードされたシークレットから、識別子を指定してHMACの鍵を作成します。
+   *
+   * @param keyId        鍵の識別子（{@code null}の場合はシークレットから求めます）
+   * @param base64Secret Base64エンコードされたシークレット
+   * @return HMACの鍵
+   */
+  public static SigningKey hmac(String keyId, String base64Secret) {
+    byte[] secret = Decoders.BASE64.decode(base64Secret);
+    SecretKey key = Keys.hmacShaKeyFor(secret);
+    return new SigningKey(keyId != null ? keyId : keyIdOf(secret), HS256, key, key);
+  }
+
+  /**
+   * PEM形式の秘密鍵と公開鍵から、公開鍵暗号の鍵を作成します。
+   *
+   * @param algorithm     署名アルゴリズム（ES256、EdDSA）
+   * @param privateKeyPem PKCS#8形式の秘密鍵（"BEGIN PRIVATE KEY"）
+   * @param publicKeyPem  X.509形式の公開鍵（"BEGIN PUBLIC KEY"）
+   * @return 公開鍵暗号の鍵
+   * @throws IllegalArgumentException 鍵の形式が不正な場合
+   */
+  public static SigningKey fromPem(String algorithm, String privateKeyPem, String publicKeyPem) {
+    return fromPem(null, algorithm, privateKeyPem, publicKeyPem);
+  }
+
+  /**
+   * PEM形式の秘密鍵と公開鍵から、識別子を指定して公開鍵暗号の鍵を作成します。
+   *
+   * @param keyId         鍵の識別子（{@code null}の場合は公開鍵から求めます）
+   * @param algorithm     署名アルゴリズム（ES256、EdDSA）
+   * @param privateKeyPem PKCS#8形式の秘密鍵（"BEGIN PRIVATE KEY"）
+   * @param publicKeyPem  X.509形式の公開鍵（"BEGIN PUBLIC KEY"）
+   * @return 公開鍵暗号の鍵
+   * @throws IllegalArgumentException 鍵の形式が不正な場合
+   */
+  public static SigningKey fromPem(String keyId, String algorithm, String privateKeyPem, String publicKeyPem) {
+    try {
+      KeyFactory keyFactory = KeyFactory.getInstance(keyFactoryAlgorithm(algorithm));
+      PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decodePem(privateKeyPem)));
+      PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(decodePem(publicKeyPem)));
+      return new SigningKey(
+          keyId != null ? keyId : keyIdOf(publicKey.getEncoded()), algorithm, privateKey, publicKey);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalArgumentException("Invalid " + algorithm + " key pair", e);
+    }
+  }
+
+  /**
+   * PEM形式の公開鍵から、検証専用の鍵を作成します。
+   * ローテーションで署名に使用しなくなった鍵を、発行済みトークンの有効期限まで検証に使用する場合などに使用します。
+   *
+   * @param keyId        鍵の識別子
+   * @param algorithm    署名アルゴリズム（ES256、EdDSA）
+   * @param publicKeyPem X.509形式の公開鍵（"BEGIN PUBLIC KEY"）
+   * @return 検証専用の鍵
+   * @throws IllegalArgumentException 鍵の形式が不正な場合
+   */
+  public static SigningKey publicKeyFromPem(String keyId, String algorithm, String publicKeyPem) {
+    try {
+      KeyFactory keyFactory = KeyFactory.getInstance(keyFactoryAlgorithm(algorithm));
+      PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(decodePem(publicKeyPem)));
+      return new SigningKey(keyId, algorithm, null, publicKey);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalArgumentException("Invalid " + algorithm + " public key", e);
+    }
+  }
+
+  /**
+   * 新しい鍵ペアを生成します。
+   * 生成した鍵はプロセス内にのみ存在するため、再起動すると以前に発行したトークンは検証できなくなります。
+   *
+   * @param algorithm 署名アルゴリズム（ES256、EdDSA）
+   * @return 生成した鍵
+   */
+  public static SigningKey generate(String algorithm) {
+    try {
+      KeyPairGenerator generator = KeyPairGenerator.getInstance(keyFactoryAlgorithm(algorithm));
+      if (ES256.equals(algorithm)) {
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+      }
+      KeyPair keyPair = generator.generateKeyPair();
+      return new SigningKey(
+          keyIdOf(keyPair.getPublic().getEncoded()), algorithm, keyPair.getPrivate(), keyPair.getPublic());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Unable to generate " + algorithm + " key pair", e);
+    }
+  }
+
+  /**
+   * 署名アルゴリズムに対応する{@link KeyFactory}のアルゴリズム名を返します。
+   *
+   * @param algorithm 署名アルゴリズム（ES256、EdDSA）
+   * @return KeyFactoryのアルゴリズム名
+   * @throws IllegalArgumentException 公開鍵暗号のアルゴリズムでない場合
+   */
+  private static String keyFactoryAlgorithm(String algorithm) {
+    return switch (algorithm) {
+      case ES256 -> "EC";
+      case EDDSA -> "Ed25519";
+      default -> throw new IllegalArgumentException("Unsupported asymmetric signing algorithm: " + algorithm);
+    };
+  }
+
+  /**
+   * PEM形式の文字列から、ヘッダー・フッターと空白を除いてDER形式のバイト列を取り出します。
+   *
+   * @param pem PEM形式の文字列
+   * @return DER形式のバイト列
+   */
+  private static byte[] decodePem(String pem) {
+    String base64 = pem
+        .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+        .replaceAll("\\s", "");
+    return Base64.getDecoder().decode(base64);
+  }
+
+  /**
+   * 鍵の内容から識別子（kid）を求めます。
+   * 鍵の内容のSHA-256ダイジェストの先頭16バイトをBase64URLエンコードした値です。
+   *
+   * @param keyMaterial 鍵の内容（公開鍵の場合はエンコード済みの公開鍵）
+   * @return 鍵の識別子
+   */
+  private static String keyIdOf(byte[] keyMaterial) {
+    byte[] digest = TokenDigests.sha256(Base64.getEncoder().encodeToString(keyMaterial));
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+  }
+}
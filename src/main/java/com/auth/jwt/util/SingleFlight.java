@@ -0,0 +1,59 @@
+package com.auth.jwt.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 同じキーに対する同時の読み込みを1回にまとめるクラスです。
+ * 最初の呼び出し元のみが読み込みを実行し、実行中に同じキーで呼び出した他の呼び出し元はその結果を共有します。
+ * 読み込みが完了した後の呼び出しは、新たに読み込みを実行します（結果をキャッシュするものではありません）。
+ *
+ * @param <K> キーの型
+ * @param <V> 読み込む値の型
+ */
+public final class SingleFlight<K, V> {
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * キーに対する読み込みを実行するか、実行中の読み込みの完了を待ってその結果を返します。
+   * 読み込みで例外が発生した場合は、待っていたすべての呼び出し元に同じ例外をスローします。
+   *
+   * @param key    キー
+   * @param loader 値を読み込む処理（{@code null}を返しても構いません）
+   * @return 読み込んだ値
+   */
+  public V execute(K key, Supplier<V> loader) {
+    final CompletableFuture<V> future = new CompletableFuture<>();
+    final CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      return await(existing);
+    }
+    try {
+      final V value = loader.get();
+      future.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  private static <V> V await(CompletableFuture<V> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.auth.jwt.util;
+
+/**
+ * 確率的データ構造（Bloomフィルターやcount-min sketch）で使用する、文字列のハッシュ関数です。
+ */
+public final class StringHashes {
+
+  private StringHashes() {
+  }
+
+  /**
+   * 文字列の64ビットハッシュを求めます（FNV-1aの結果をMurmurHash3の最終処理で撹拌）。
+   * 上位32ビットと下位32ビットを組み合わせることで、複数の独立したハッシュ値として使用できます。
+   *
+   * @param value ハッシュを求める文字列
+   * @return 64ビットのハッシュ値
+   */
+  public static long hash64(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      h ^= value.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
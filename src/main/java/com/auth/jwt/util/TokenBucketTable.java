@@ -0,0 +1,93 @@
+package com.auth.jwt.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * キーごとのトークンバケットを、固定数のスロットで管理するレートリミッターです。
+ * 各スロットはトークンバケットと等価なGCRA（Generic Cell Rate Algorithm）の理論到着時刻を1つのlong値で保持し、
+ * ロックを使用せずCASのみで更新します。
+ * キーはハッシュ値でスロットに割り当て、キー自体は保持しないため、キーの種類数によらずメモリ使用量は一定です。
+ * 同じスロットに割り当てられたキーはバケットを共有するため、スロット数はキーの種類数に対して十分に大きくしてください。
+ */
+public final class TokenBucketTable {
+
+  private final AtomicLongArray theoreticalArrivalTimes;
+  private final long emissionIntervalNanos;
+  private final long burstToleranceNanos;
+  private final LongSupplier clock;
+  private final long origin;
+
+  /**
+   * TokenBucketTableの新しいインスタンスを生成します。
+   *
+   * @param slots                スロット数
+   * @param capacity             バケットの容量（連続して許可するリクエスト数）
+   * @param refillIntervalMillis トークンが1つ補充されるまでの時間（ミリ秒）
+   */
+  public TokenBucketTable(int slots, int capacity, long refillIntervalMillis) {
+    this(slots, capacity, refillIntervalMillis, System::nanoTime);
+  }
+
+  /**
+   * 現在時刻の取得方法を指定して、TokenBucketTableの新しいインスタンスを生成します（テスト用）。
+   *
+   * @param slots                スロット数
+   * @param capacity             バケットの容量（連続して許可するリクエスト数）
+   * @param refillIntervalMillis トークンが1つ補充されるまでの時間（ミリ秒）
+   * @param clock                現在時刻（ナノ秒）を返す関数
+   */
+  TokenBucketTable(int slots, int capacity, long refillIntervalMillis, LongSupplier clock) {
+    this.theoreticalArrivalTimes = new AtomicLongArray(slots);
+    this.emissionIntervalNanos = refillIntervalMillis * 1_000_000L;
+    this.burstToleranceNanos = (Math.max(1, capacity) - 1) * emissionIntervalNanos;
+    this.clock = clock;
+    this.origin = clock.getAsLong();
+  }
+
+  /**
+   * キーのバケットからトークンを1つ取得します。
+   *
+   * @param key キー
+   * @return 取得できた場合は0。取得できなかった場合は、次にトークンを取得できるまでの時間（ナノ秒）
+   */
+  public long tryAcquire(String key) {
+    final int slot = slot(key);
+    final long now = now();
+    while (true) {
+      final long tat = theoreticalArrivalTimes.get(slot);
+      final long start = Math.max(tat, now);
+      final long wait = start - now - burstToleranceNanos;
+      if (wait > 0) {
+        return wait;
+      }
+      if (theoreticalArrivalTimes.compareAndSet(slot, tat, start + emissionIntervalNanos)) {
+        return 0;
+      }
+    }
+  }
+
+  /**
+   * キーのバケットからトークンを取得できるまでの時間を、トークンを消費せずに返します。
+   * 複数のバケットのすべてで取得できる場合にのみ消費するよう、{@link #tryAcquire(String)}の前の確認に使用します。
+   *
+   * @param key キー
+   * @return 取得できる場合は0。取得できない場合は、次にトークンを取得できるまでの時間（ナノ秒）
+   */
+  public long waitTime(String key) {
+    final long now = now();
+    final long start = Math.max(theoreticalArrivalTimes.get(slot(key)), now);
+    return Math.max(0, start - now - burstToleranceNanos);
+  }
+
+  private int slot(String key) {
+    return (int) ((StringHashes.hash64(key) & Long.MAX_VALUE) % theoreticalArrivalTimes.length());
+  }
+
+  /**
+   * @return 生成時からの経過時間（ナノ秒）。スロットの初期値0が「バケットが満杯」を表すよう、経過時間を使用する
+   */
+  private long now() {
+    return clock.getAsLong() - origin;
+  }
+}
@@ -0,0 +1,30 @@
+package com.auth.jwt.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * トークン文字列のダイジェストを計算するユーティリティクラスです。
+ * トークンそのものを保持・比較する代わりに、固定長のダイジェストを使用するために利用します。
+ */
+public final class TokenDigests {
+
+  private TokenDigests() {
+  }
+
+  /**
+   * トークン文字列のSHA-256ダイジェストを計算します。
+   *
+   * @param token トークン文字列
+   * @return 32バイトのSHA-256ダイジェスト
+   */
+  public static byte[] sha256(String token) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-256はすべてのJava実行環境で提供されるため、通常は発生しない
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
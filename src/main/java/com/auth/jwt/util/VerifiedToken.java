@@ -0,0 +1,51 @@
+package com.auth.jwt.util;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * 署名と有効期限の検証を終えたJWTの内容を保持する不変オブジェクトです。
+ * 1回の検証・解析結果をリクエスト内で使い回すことで、同じトークンを何度も解析しないようにします。
+ *
+ * @param subject    サブジェクト（ユーザー名）
+ * @param expiration 有効期限
+ * @param issuedAt   発行日時（含まれていない場合は{@code null}）
+ * @param claims     トークンに含まれるすべてのクレーム（変更不可）
+ */
+public record VerifiedToken(String subject, Instant expiration, Instant issuedAt, Map<String, Object> claims) {
+
+  public VerifiedToken {
+    claims = Map.copyOf(claims);
+  }
+
+  /**
+   * 指定した名前のクレームを取得します。
+   *
+   * @param <T>  クレームの型
+   * @param name クレーム名
+   * @param type クレームの型
+   * @return クレームの値。存在しない場合は{@code null}
+   */
+  public <T> T getClaim(String name, Class<T> type) {
+    return type.cast(claims.get(name));
+  }
+
+  /**
+   * トークンのID（jtiクレーム）を取得します。
+   *
+   * @return トークンのID。含まれていない場合は{@code null}
+   */
+  public String tokenId() {
+    return getClaim("jti", String.class);
+  }
+
+  /**
+   * トークンが指定した時刻の時点で有効期限切れかどうかを判定します。
+   *
+   * @param now 判定に使用する現在時刻
+   * @return 有効期限切れの場合にtrue
+   */
+  public boolean isExpiredAt(Instant now) {
+    return expiration.isBefore(now);
+  }
+}
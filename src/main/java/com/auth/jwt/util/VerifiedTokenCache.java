@@ -0,0 +1,164 @@
+package com.auth.jwt.util;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 署名検証済みトークンを保持する、サイズ上限付きのスレッドセーフなキャッシュです。
+ * 同じアクセストークンが繰り返し送られてきた場合に、HMACの検証とJSONの解析を省略するために使用します。
+ * キーはトークンのSHA-256ダイジェスト（先頭128ビット）で、各エントリはトークンの有効期限（exp）に達すると破棄されます。
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+  private final boolean enabled;
+  private final Cache<TokenKey, VerifiedToken> cache;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * VerifiedTokenCacheの新しいインスタンスを生成します。
+   *
+   * @param enabled キャッシュを有効にする場合はtrue
+   * @param maxSize キャッシュに保持する最大エントリ数
+   */
+  public VerifiedTokenCache(
+      @Value("${jwt.cache.enabled:true}") boolean enabled,
+      @Value("${jwt.cache.max-size:100000}") long maxSize) {
+    this.enabled = enabled;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new ExpireAtTokenExpiration())
+        .build();
+  }
+
+  /**
+   * トークンに対応する検証済みトークンをキャッシュから取得します。
+   *
+   * @param token JWTトークン
+   * @return キャッシュされた検証済みトークン。キャッシュが無効、未登録、または有効期限切れの場合は{@code null}
+   */
+  public VerifiedToken get(String token) {
+    if (!enabled) {
+      return null;
+    }
+    VerifiedToken verifiedToken = cache.getIfPresent(TokenKey.of(token));
+    // 有効期限ちょうどでの取得に備え、期限切れのエントリは返さない
+    if (verifiedToken == null || verifiedToken.isExpiredAt(Instant.now())) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return verifiedToken;
+  }
+
+  /**
+   * 検証済みトークンをキャッシュに登録します。
+   *
+   * @param token         JWTトークン
+   * @param verifiedToken 検証済みトークン
+   */
+  public void put(String token, VerifiedToken verifiedToken) {
+    if (enabled) {
+      cache.put(TokenKey.of(token), verifiedToken);
+    }
+  }
+
+  /**
+   * キャッシュのすべてのエントリを破棄します。
+   * 署名鍵が変わった場合など、キャッシュ済みの検証結果が信頼できなくなったときに使用します。
+   */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * @return キャッシュがヒットした回数
+   */
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * @return キャッシュがヒットしなかった回数
+   */
+  public long missCount() {
+    return misses.sum();
+  }
+
+  /**
+   * @return 現在のおおよそのエントリ数
+   */
+  public long size() {
+    return cache.estimatedSize();
+  }
+
+  /**
+   * ヒット数、ミス数、エントリ数をメトリクスとして公開します。
+   *
+   * @param registry メトリクスの登録先
+   */
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("auth.token.cache.requests", this, VerifiedTokenCache::hitCount)
+        .description("Verified token cache lookups")
+        .tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("auth.token.cache.requests", this, VerifiedTokenCache::missCount)
+        .description("Verified token cache lookups")
+        .tag("result", "miss")
+        .register(registry);
+    Gauge.builder("auth.token.cache.size", this, VerifiedTokenCache::size)
+        .description("Approximate number of cached verified tokens")
+        .register(registry);
+  }
+
+  /**
+   * トークンのSHA-256ダイジェストの先頭128ビットを保持するキャッシュキーです。
+   *
+   * @param high ダイジェストの先頭64ビット
+   * @param low  ダイジェストの次の64ビット
+   */
+  private record TokenKey(long high, long low) {
+
+    static TokenKey of(String token) {
+      ByteBuffer digest = ByteBuffer.wrap(TokenDigests.sha256(token));
+      return new TokenKey(digest.getLong(), digest.getLong());
+    }
+  }
+
+  /**
+   * 各エントリの有効期間を、トークンの有効期限（exp）までの残り時間とする{@link Expiry}です。
+   */
+  private static final class ExpireAtTokenExpiration implements Expiry<TokenKey, VerifiedToken> {
+
+    @Override
+    public long expireAfterCreate(TokenKey key, VerifiedToken value, long currentTime) {
+      return Math.max(0L, Duration.between(Instant.now(), value.expiration()).toNanos());
+    }
+
+    @Override
+    public long expireAfterUpdate(TokenKey key, VerifiedToken value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(TokenKey key, VerifiedToken value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -14,7 +14,69 @@ CREATE TABLE
   refreshtoken (
     id INT PRIMARY KEY AUTO_INCREMENT,
     account_id INT NOT NULL,
-    token VARCHAR(255) NOT NULL UNIQUE,
+    token_hash BINARY(32) NOT NULL UNIQUE,
     expiry_date DATETIME NOT NULL,
     FOREIGN KEY (account_id) REFERENCES accounts (id)
-  );
\ No newline at end of file
+  );
+
+CREATE INDEX idx_refreshtoken_account_id ON refreshtoken (account_id);
+
+CREATE INDEX idx_refreshtoken_expiry_date ON refreshtoken (expiry_date);
+
+
+DROP TABLE IF EXISTS scheduler_lock;
+
+CREATE TABLE
+  scheduler_lock (
+    name VARCHAR(64) PRIMARY KEY,
+    locked_until TIMESTAMP NOT NULL,
+    locked_by VARCHAR(255) NOT NULL
+  );
+
+INSERT INTO
+  scheduler_lock (name, locked_until, locked_by)
+VALUES
+  ('refresh-token-purge', TIMESTAMP '1970-01-01 00:00:00', '');
+
+
+DROP TABLE IF EXISTS jwt_signing_keys;
+
+-- JWTの署名鍵（active = TRUEの鍵で署名し、not_afterまでの鍵はすべて検証に使用する）
+CREATE TABLE
+  jwt_signing_keys (
+    kid VARCHAR(64) PRIMARY KEY,
+    algorithm VARCHAR(16) NOT NULL,
+    secret VARCHAR(255),
+    private_key CLOB,
+    public_key CLOB,
+    active BOOLEAN NOT NULL DEFAULT FALSE,
+    not_after TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+  );
+
+
+DROP TABLE IF EXISTS revoked_tokens;
+
+-- 有効期限前に無効化したアクセストークン（有効期限を過ぎた行は定期的に削除する）
+CREATE TABLE
+  revoked_tokens (
+    jti VARCHAR(64) PRIMARY KEY,
+    expires_at TIMESTAMP NOT NULL
+  );
+
+CREATE INDEX idx_revoked_tokens_expires_at ON revoked_tokens (expires_at);
+
+
+DROP TABLE IF EXISTS auth_events;
+
+-- 各ノードのキャッシュに反映する変更の履歴（追記のみ。各ノードはseqの続きから読み込む）
+CREATE TABLE
+  auth_events (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(32) NOT NULL,
+    subject VARCHAR(250) NOT NULL,
+    expires_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+  );
+
+CREATE INDEX idx_auth_events_created_at ON auth_events (created_at);
@@ -0,0 +1,82 @@
+package com.auth.jwt.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link LocalRefreshRateLimiter}のテストです。
+ */
+class LocalRefreshRateLimiterTest {
+
+  /** テスト中にトークンが補充されないよう、十分に長い補充間隔を使用する */
+  private static final long REFILL_INTERVAL = 60_000;
+
+  @Test
+  void refreshTokenIsLimitedAfterBurst() {
+    LocalRefreshRateLimiter limiter = newLimiter(true, 2, 100);
+
+    assertEquals(0, limiter.tryAcquire("token-a", "10.0.0.1"));
+    assertEquals(0, limiter.tryAcquire("token-a", "10.0.0.1"));
+
+    final long retryAfterMillis = limiter.tryAcquire("token-a", "10.0.0.1");
+    assertTrue(retryAfterMillis > 0 && retryAfterMillis <= REFILL_INTERVAL, "retry after " + retryAfterMillis);
+    // 他のリフレッシュトークンは制限しない
+    assertEquals(0, limiter.tryAcquire("token-b", "10.0.0.1"));
+  }
+
+  @Test
+  void clientIpIsLimitedAcrossRefreshTokens() {
+    LocalRefreshRateLimiter limiter = newLimiter(true, 100, 3);
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0, limiter.tryAcquire("token-" + i, "10.0.0.1"));
+    }
+
+    assertTrue(limiter.tryAcquire("token-3", "10.0.0.1") > 0);
+    // 他のIPアドレスからは制限しない
+    assertEquals(0, limiter.tryAcquire("token-3", "10.0.0.2"));
+  }
+
+  @Test
+  void limitedRefreshTokenDoesNotDrainClientIp() {
+    LocalRefreshRateLimiter limiter = newLimiter(true, 1, 3);
+
+    assertEquals(0, limiter.tryAcquire("token-a", "10.0.0.1"));
+    // 制限中のリフレッシュトークンの再試行は、IPアドレスの回数を消費しない
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limiter.tryAcquire("token-a", "10.0.0.1") > 0);
+    }
+
+    assertEquals(0, limiter.tryAcquire("token-b", "10.0.0.1"));
+    assertEquals(0, limiter.tryAcquire("token-c", "10.0.0.1"));
+  }
+
+  @Test
+  void limitedClientIpDoesNotDrainRefreshToken() {
+    LocalRefreshRateLimiter limiter = newLimiter(true, 1, 1);
+
+    assertEquals(0, limiter.tryAcquire("token-a", "10.0.0.1"));
+    assertTrue(limiter.tryAcquire("token-b", "10.0.0.1") > 0);
+
+    // IPアドレスの制限で拒否したリクエストは、リフレッシュトークンの回数を消費しない
+    assertEquals(0, limiter.tryAcquire("token-b", "10.0.0.2"));
+  }
+
+  @Test
+  void nothingIsLimitedWhenDisabled() {
+    LocalRefreshRateLimiter limiter = newLimiter(false, 1, 1);
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals(0, limiter.tryAcquire("token-a", "10.0.0.1"));
+    }
+  }
+
+  private static LocalRefreshRateLimiter newLimiter(boolean enabled, int tokenCapacity, int ipCapacity) {
+    return new LocalRefreshRateLimiter(enabled, 1 << 16, tokenCapacity, REFILL_INTERVAL, ipCapacity, REFILL_INTERVAL,
+        new SimpleMeterRegistry());
+  }
+}
@@ -0,0 +1,68 @@
+package com.auth.jwt.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link LoginThrottle}のしきい値による制限のテストです。
+ */
+class LoginThrottleTest {
+
+  /** テスト中に窓が切り替わらないよう、十分に長い窓を使用する */
+  private static final long WINDOW = 3_600_000;
+
+  @Test
+  void usernameIsThrottledAtThreshold() {
+    LoginThrottle throttle = newThrottle(true);
+
+    for (int i = 0; i < 2; i++) {
+      throttle.recordFailure("alice", "10.0.0." + i);
+    }
+    assertFalse(throttle.isThrottled("alice", "10.0.0.9"));
+
+    throttle.recordFailure("alice", "10.0.0.2");
+    assertTrue(throttle.isThrottled("alice", "10.0.0.9"));
+    // 他のユーザー名は制限しない
+    assertFalse(throttle.isThrottled("bob", "10.0.0.9"));
+  }
+
+  @Test
+  void clientIpIsThrottledAtThreshold() {
+    LoginThrottle throttle = newThrottle(true);
+
+    for (int i = 0; i < 4; i++) {
+      throttle.recordFailure("user-" + i, "10.0.0.1");
+    }
+    assertFalse(throttle.isThrottled("new-user", "10.0.0.1"));
+
+    throttle.recordFailure("user-4", "10.0.0.1");
+    assertTrue(throttle.isThrottled("new-user", "10.0.0.1"));
+    // 他のIPアドレスからは制限しない
+    assertFalse(throttle.isThrottled("new-user", "10.0.0.2"));
+  }
+
+  @Test
+  void nothingIsThrottledWhenDisabled() {
+    LoginThrottle throttle = newThrottle(false);
+
+    for (int i = 0; i < 10; i++) {
+      throttle.recordFailure("alice", "10.0.0.1");
+    }
+
+    assertFalse(throttle.isThrottled("alice", "10.0.0.1"));
+  }
+
+  @Test
+  void retryAfterIsWindowLength() {
+    assertEquals(WINDOW / 1000, newThrottle(true).retryAfterSeconds());
+  }
+
+  private static LoginThrottle newThrottle(boolean enabled) {
+    return new LoginThrottle(enabled, 3, 5, WINDOW, 4, 1024, new SimpleMeterRegistry());
+  }
+}
@@ -0,0 +1,111 @@
+package com.auth.jwt.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.auth.jwt.entity.Account;
+import com.auth.jwt.mapper.AccountMapper;
+import com.auth.jwt.metrics.AuthMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * {@link AccountUserDetailsService}の同時ロードのテストです。
+ */
+class AccountUserDetailsServiceTest {
+
+  private static final int CALLERS = 32;
+
+  private final AccountMapper accountMapper = mock(AccountMapper.class);
+
+  @Test
+  void concurrentLoadsOfSameUserRunOneQuery() throws InterruptedException {
+    // 1件目の取得は release が開放されるまでデータベースで止まる
+    CountDownLatch release = new CountDownLatch(1);
+    when(accountMapper.findByUsername("alice")).thenAnswer(invocation -> {
+      release.await();
+      return account("alice");
+    });
+    AccountUserDetailsService service = newService();
+
+    Queue<UserDetails> results = new ConcurrentLinkedQueue<>();
+    List<Thread> callers = new ArrayList<>();
+    for (int i = 0; i < CALLERS; i++) {
+      callers.add(new Thread(() -> results.add(service.loadUserByUsername("alice"))));
+    }
+    callers.forEach(Thread::start);
+
+    // 1件目の取得がデータベースで止まり、残りの呼び出し元がその完了を待つ状態になってから取得を完了させる
+    awaitWaiting(callers);
+    release.countDown();
+    for (Thread caller : callers) {
+      caller.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    verify(accountMapper, times(1)).findByUsername("alice");
+    assertEquals(CALLERS, results.size());
+    // 認証情報の消去が他の呼び出し元に影響しないよう、UserDetailsは呼び出し元ごとに異なるインスタンスであること
+    Set<UserDetails> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+    instances.addAll(results);
+    assertEquals(CALLERS, instances.size());
+    assertTrue(results.stream().allMatch(userDetails -> "alice".equals(userDetails.getUsername())));
+  }
+
+  @Test
+  void loadAfterCompletedLoadRunsNewQuery() {
+    when(accountMapper.findByUsername("alice")).thenReturn(account("alice"));
+    AccountUserDetailsService service = newService();
+
+    service.loadUserByUsername("alice");
+    service.loadUserByUsername("alice");
+
+    verify(accountMapper, times(2)).findByUsername("alice");
+  }
+
+  private AccountUserDetailsService newService() {
+    return new AccountUserDetailsService(
+        accountMapper, new UserDetailsCache(false, 0, 0), new AuthMetrics(new SimpleMeterRegistry()),
+        new UnknownUsernameFilter(accountMapper, false, false, false, 0, 0, 0, 0.01, 0, 0));
+  }
+
+  private static Account account(String username) {
+    Account account = new Account();
+    account.setId(1L);
+    account.setUsername(username);
+    account.setPassword("{noop}password");
+    return account;
+  }
+
+  /**
+   * すべてのスレッドが待機状態になるまで待ちます。
+   *
+   * @param threads 対象のスレッド
+   */
+  private static void awaitWaiting(List<Thread> threads) throws InterruptedException {
+    final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)) {
+      if (System.nanoTime() > deadline) {
+        fail("Callers did not block on the in-flight load");
+      }
+      Thread.sleep(10);
+    }
+  }
+}
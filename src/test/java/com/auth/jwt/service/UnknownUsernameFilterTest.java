@@ -0,0 +1,75 @@
+package com.auth.jwt.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.Test;
+
+import com.auth.jwt.mapper.AccountMapper;
+
+/**
+ * {@link UnknownUsernameFilter}のテストです。
+ */
+class UnknownUsernameFilterTest {
+
+  @Test
+  void missingUsernameIsCachedAsUnknown() {
+    UnknownUsernameFilter filter = newFilter(false, true, 20);
+
+    assertNull(filter.load("ghost", () -> null));
+
+    assertTrue(filter.isUnknown("ghost"));
+  }
+
+  @Test
+  void registrationDuringLookupIsNotCachedAsUnknown() {
+    UnknownUsernameFilter filter = newFilter(false, true, 20);
+
+    // 取得がデータベースで見つからなかった後、結果を記録する前に同じユーザー名が登録された場合
+    filter.load("alice", () -> {
+      filter.markRegistered("alice");
+      return null;
+    });
+
+    assertFalse(filter.isUnknown("alice"));
+  }
+
+  @Test
+  void registrationAfterLookupClearsUnknown() {
+    UnknownUsernameFilter filter = newFilter(false, true, 20);
+    filter.load("alice", () -> null);
+
+    filter.markRegistered("alice");
+
+    assertFalse(filter.isUnknown("alice"));
+  }
+
+  @Test
+  void bloomMissesAreRecheckedUntilBudgetIsSpent() {
+    UnknownUsernameFilter filter = newFilter(true, false, 2);
+
+    // 他のノードで登録された直後の可能性があるため、上限まではデータベースで確認させる
+    assertFalse(filter.isUnknown("user-1"));
+    assertFalse(filter.isUnknown("user-2"));
+    assertTrue(filter.isUnknown("user-3"));
+  }
+
+  @Test
+  void bloomFilterIsDisabledWithoutEvents() {
+    UnknownUsernameFilter filter = new UnknownUsernameFilter(
+        mock(AccountMapper.class), true, false, false, 0, 0, 1_000, 0.01, 0, 60_000);
+    filter.loadRegisteredUsernames();
+
+    assertFalse(filter.isUnknown("registered-elsewhere"));
+  }
+
+  private static UnknownUsernameFilter newFilter(boolean bloomEnabled, boolean cacheEnabled, int recheckCapacity) {
+    UnknownUsernameFilter filter = new UnknownUsernameFilter(
+        mock(AccountMapper.class), bloomEnabled, true, cacheEnabled, 1_000, 60_000, 1_000, 0.01,
+        recheckCapacity, 60_000);
+    filter.loadRegisteredUsernames();
+    return filter;
+  }
+}
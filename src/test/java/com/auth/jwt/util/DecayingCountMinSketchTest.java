@@ -0,0 +1,158 @@
+package com.auth.jwt.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * {@link DecayingCountMinSketch}のテストです。
+ */
+class DecayingCountMinSketchTest {
+
+  private static final long WINDOW = 60_000;
+
+  /** 窓の先頭の時刻（窓の途中から始めると、直前の窓の重みが1未満になるため） */
+  private final AtomicLong now = new AtomicLong(WINDOW * 1_000);
+
+  @Test
+  void estimateGrowsWithEveryIncrement() {
+    DecayingCountMinSketch sketch = newSketch(4, 1024);
+
+    long previous = sketch.estimate("alice");
+    for (int i = 1; i <= 100; i++) {
+      sketch.increment("alice");
+      final long estimate = sketch.estimate("alice");
+      assertTrue(estimate > previous);
+      assertTrue(estimate >= i);
+      previous = estimate;
+    }
+    assertEquals(0, sketch.estimate("bob"));
+  }
+
+  @Test
+  void neverUnderestimatesUnderCollisions() {
+    // カウンター数よりはるかに多いキーを加算し、衝突が頻発する状態にする
+    DecayingCountMinSketch sketch = newSketch(4, 256);
+    final int keys = 10_000;
+    for (int key = 0; key < keys; key++) {
+      for (int i = 0; i <= key % 5; i++) {
+        sketch.increment("user-" + key);
+      }
+    }
+
+    for (int key = 0; key < keys; key++) {
+      assertTrue(sketch.estimate("user-" + key) >= key % 5 + 1);
+    }
+  }
+
+  @Test
+  void conservativeUpdateKeepsEstimateCloseUnderFlood() {
+    DecayingCountMinSketch sketch = newSketch(4, 65_536);
+    for (int i = 0; i < 5; i++) {
+      sketch.increment("victim");
+    }
+    // 1回ずつの大量のキー（存在しないユーザー名の総当たりを想定）
+    for (int key = 0; key < 200_000; key++) {
+      sketch.increment("flood-" + key);
+    }
+
+    final long estimate = sketch.estimate("victim");
+    assertTrue(estimate >= 5);
+    assertTrue(estimate <= 7, "estimate " + estimate);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = { 1, 4 })
+  void concurrentIncrementsAreNotLost(int depth) throws InterruptedException {
+    DecayingCountMinSketch sketch = newSketch(depth, 1024);
+    final int threads = 8;
+    final int increments = 100_000;
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      workers.add(new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        for (int i = 0; i < increments; i++) {
+          sketch.increment("alice");
+        }
+      }));
+    }
+    workers.forEach(Thread::start);
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    final long expected = (long) threads * increments;
+    if (depth == 1) {
+      // 1行の場合は再試行による加算し直しが起きないため、回数は一致する（失われた回数が隠れない）
+      assertEquals(expected, sketch.estimate("alice"));
+    } else {
+      assertTrue(sketch.estimate("alice") >= expected);
+    }
+  }
+
+  @Test
+  void previousWindowDecaysWithElapsedTime() {
+    DecayingCountMinSketch sketch = newSketch(4, 1024);
+    for (int i = 0; i < 10; i++) {
+      sketch.increment("alice");
+    }
+
+    // 次の窓の先頭では、直前の窓の回数がそのまま残る
+    now.addAndGet(WINDOW);
+    assertEquals(10, sketch.estimate("alice"));
+
+    // 次の窓の半分が経過すると、直前の窓の回数は半分になる
+    now.addAndGet(WINDOW / 2);
+    assertEquals(5, sketch.estimate("alice"));
+
+    // 現在の窓の回数は減衰せずに加算される
+    sketch.increment("alice");
+    assertEquals(6, sketch.estimate("alice"));
+  }
+
+  @Test
+  void countsAreDroppedAfterTwoWindows() {
+    DecayingCountMinSketch sketch = newSketch(4, 1024);
+    for (int i = 0; i < 10; i++) {
+      sketch.increment("alice");
+    }
+
+    now.addAndGet(WINDOW * 2);
+
+    assertEquals(0, sketch.estimate("alice"));
+  }
+
+  @Test
+  void idleWindowDoesNotCarryOldCounts() {
+    DecayingCountMinSketch sketch = newSketch(4, 1024);
+    for (int i = 0; i < 10; i++) {
+      sketch.increment("alice");
+    }
+
+    // 1つ以上の窓をまたいで加算した場合、古い窓の回数は直前の窓として引き継がない
+    now.addAndGet(WINDOW * 3);
+    sketch.increment("alice");
+
+    assertEquals(1, sketch.estimate("alice"));
+  }
+
+  private DecayingCountMinSketch newSketch(int depth, int width) {
+    return new DecayingCountMinSketch(depth, width, WINDOW, now::get);
+  }
+}
@@ -0,0 +1,97 @@
+package com.auth.jwt.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link TokenBucketTable}のテストです。
+ */
+class TokenBucketTableTest {
+
+  private static final long REFILL_INTERVAL_MILLIS = 1_000;
+  private static final long REFILL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(REFILL_INTERVAL_MILLIS);
+
+  private final AtomicLong now = new AtomicLong(123_456_789L);
+
+  @Test
+  void allowsBurstUpToCapacity() {
+    TokenBucketTable buckets = newBuckets(5);
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, buckets.tryAcquire("token"));
+    }
+    assertTrue(buckets.tryAcquire("token") > 0);
+  }
+
+  @Test
+  void waitIsTimeUntilNextToken() {
+    TokenBucketTable buckets = newBuckets(5);
+    for (int i = 0; i < 5; i++) {
+      buckets.tryAcquire("token");
+    }
+
+    assertEquals(REFILL_INTERVAL_NANOS, buckets.tryAcquire("token"));
+
+    // 拒否したリクエストはトークンを消費しないため、待ち時間は経過した時間だけ短くなる
+    now.addAndGet(REFILL_INTERVAL_NANOS / 4);
+    assertEquals(REFILL_INTERVAL_NANOS * 3 / 4, buckets.tryAcquire("token"));
+  }
+
+  @Test
+  void refillsOneTokenPerInterval() {
+    TokenBucketTable buckets = newBuckets(5);
+    for (int i = 0; i < 5; i++) {
+      buckets.tryAcquire("token");
+    }
+
+    now.addAndGet(REFILL_INTERVAL_NANOS);
+    assertEquals(0, buckets.tryAcquire("token"));
+    assertTrue(buckets.tryAcquire("token") > 0);
+
+    now.addAndGet(REFILL_INTERVAL_NANOS * 2);
+    assertEquals(0, buckets.tryAcquire("token"));
+    assertEquals(0, buckets.tryAcquire("token"));
+    assertTrue(buckets.tryAcquire("token") > 0);
+  }
+
+  @Test
+  void refillIsCappedAtCapacity() {
+    TokenBucketTable buckets = newBuckets(5);
+    buckets.tryAcquire("token");
+
+    // 長時間使用しなくても、容量を超えてトークンは貯まらない
+    now.addAndGet(REFILL_INTERVAL_NANOS * 100);
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, buckets.tryAcquire("token"));
+    }
+    assertTrue(buckets.tryAcquire("token") > 0);
+  }
+
+  @Test
+  void waitTimeDoesNotConsumeTokens() {
+    TokenBucketTable buckets = newBuckets(1);
+
+    assertEquals(0, buckets.waitTime("token"));
+    assertEquals(0, buckets.waitTime("token"));
+    assertEquals(0, buckets.tryAcquire("token"));
+    assertEquals(REFILL_INTERVAL_NANOS, buckets.waitTime("token"));
+  }
+
+  @Test
+  void keysHaveIndependentBuckets() {
+    TokenBucketTable buckets = newBuckets(1);
+
+    assertEquals(0, buckets.tryAcquire("token-a"));
+    assertTrue(buckets.tryAcquire("token-a") > 0);
+    assertEquals(0, buckets.tryAcquire("token-b"));
+  }
+
+  private TokenBucketTable newBuckets(int capacity) {
+    return new TokenBucketTable(1 << 16, capacity, REFILL_INTERVAL_MILLIS, now::get);
+  }
+}